@@ -0,0 +1,50 @@
+package me.trihung.auth;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import lombok.Getter;
+
+/**
+ * Principal của request đã xác thực, được dựng trực tiếp từ claim của access token
+ * (sub, uid, roles) nên không cần đọc bảng users ở mỗi request.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails, CredentialsContainer {
+
+	public static final String ROLE_PREFIX = "ROLE_";
+
+	private final UUID id;
+	private final String username;
+	private String password;
+	private final Collection<GrantedAuthority> authorities;
+
+	public AuthenticatedUser(UUID id, String username, String password, Collection<String> roles) {
+		this.id = id;
+		this.username = username;
+		this.password = password;
+		this.authorities = roles == null ? List.of()
+				: roles.stream().map(role -> (GrantedAuthority) new SimpleGrantedAuthority(ROLE_PREFIX + role)).toList();
+	}
+
+	@Override
+	public void eraseCredentials() {
+		this.password = null;
+	}
+
+	// Tên role không có tiền tố ROLE_, đúng với giá trị lưu trong bảng roles và claim roles
+	public Set<String> getRoles() {
+		return authorities.stream()
+				.map(GrantedAuthority::getAuthority)
+				.map(authority -> authority.startsWith(ROLE_PREFIX) ? authority.substring(ROLE_PREFIX.length()) : authority)
+				.collect(Collectors.toSet());
+	}
+}
@@ -0,0 +1,71 @@
+package me.trihung.auth;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Bọc JwtDecoder và giữ lại các token đã xác thực chữ ký thành công cho tới thời điểm exp.
+ * Cùng 1 access token được gửi lại ở các request sau sẽ không phải verify chữ ký RSA nữa.
+ * Key là SHA-256 của chuỗi token để không giữ token gốc làm key trong bộ nhớ.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+	private final JwtDecoder delegate;
+	private final Cache<String, Jwt> cache;
+
+	public CachingJwtDecoder(JwtDecoder delegate, long maxSize) {
+		this.delegate = delegate;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfter(new ExpiresAtExpiry())
+				.recordStats()
+				.build();
+	}
+
+	public Cache<String, Jwt> getCache() {
+		return cache;
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		String key = DigestUtils.sha256Hex(token);
+		Jwt cached = cache.getIfPresent(key);
+		if (cached != null && cached.getExpiresAt().isAfter(Instant.now())) {
+			return cached;
+		}
+		// Lỗi chữ ký/hết hạn được ném ra từ delegate và không bao giờ được cache
+		Jwt jwt = delegate.decode(token);
+		if (jwt.getExpiresAt() != null) {
+			cache.put(key, jwt);
+		}
+		return jwt;
+	}
+
+	// Mỗi entry sống đúng tới exp của token, đọc lại không gia hạn
+	private static class ExpiresAtExpiry implements Expiry<String, Jwt> {
+
+		@Override
+		public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+			return Math.max(0, Duration.between(Instant.now(), jwt.getExpiresAt()).toNanos());
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, jwt, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
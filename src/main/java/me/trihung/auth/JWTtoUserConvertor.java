@@ -1,23 +1,29 @@
 package me.trihung.auth;
 
-import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
 @Component
 public class JWTtoUserConvertor implements Converter<Jwt, UsernamePasswordAuthenticationToken> {
 
+	// Dựng principal từ claim, không truy vấn DB. Token cũ (hoặc refresh token) không có uid/roles
+	// thì id = null và không có quyền, SecurityHelper sẽ tự tra user theo username khi cần
 	@Override
 	public UsernamePasswordAuthenticationToken convert(Jwt source) {
-		UserDetails user =  new org.springframework.security.core.userdetails.User(
+		String uid = source.getClaimAsString(TokenGenerator.CLAIM_USER_ID);
+		List<String> roles = source.getClaimAsStringList(TokenGenerator.CLAIM_ROLES);
+		AuthenticatedUser user = new AuthenticatedUser(
+                uid != null ? UUID.fromString(uid) : null,
                 source.getSubject(),
                 "",
-                Collections.EMPTY_LIST
+                roles
         );
-		return new UsernamePasswordAuthenticationToken(user, source, Collections.EMPTY_LIST);
+		return new UsernamePasswordAuthenticationToken(user, source, user.getAuthorities());
 	}
 
 }
\ No newline at end of file
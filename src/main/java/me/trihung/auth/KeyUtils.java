@@ -6,6 +6,7 @@ import org.apache.juli.logging.Log;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
@@ -14,8 +15,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.security.*;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
 import java.security.spec.EncodedKeySpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
@@ -41,9 +41,25 @@ public class KeyUtils {
     @Value("${refresh-token.public}")
     private String refreshTokenPublicKeyPath;
 
+    // RS256 (RSA-2048) hoặc ES256 (EC P-256), đổi thuật toán thì phải trỏ sang file key khác
+    @Value("${app.security.jwt-algorithm:RS256}")
+    private SignatureAlgorithm signatureAlgorithm;
+
     private KeyPair _accessTokenKeyPair;
     private KeyPair _refreshTokenKeyPair;
 
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    private String keyAlgorithm() {
+        return switch (signatureAlgorithm) {
+            case RS256 -> "RSA";
+            case ES256 -> "EC";
+            default -> throw new KeyInitializationException("Unsupported JWT algorithm " + signatureAlgorithm + ", use RS256 or ES256");
+        };
+    }
+
     private KeyPair getAccessTokenKeyPair() {
         if (Objects.isNull(_accessTokenKeyPair)) {
             _accessTokenKeyPair = getKeyPair(accessTokenPublicKeyPath, accessTokenPrivateKeyPath);
@@ -67,7 +83,7 @@ public class KeyUtils {
         if (publicKeyFile.exists() && privateKeyFile.exists()) {
             //log.info("loading keys from file: {}, {}", publicKeyPath, privateKeyPath);
             try {
-                KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+                KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm());
 
                 byte[] publicKeyBytes = Files.readAllBytes(publicKeyFile.toPath());
                 EncodedKeySpec publicKeySpec = new X509EncodedKeySpec(publicKeyBytes);
@@ -79,7 +95,10 @@ public class KeyUtils {
 
                 keyPair = new KeyPair(publicKey, privateKey);
                 return keyPair;
-            } catch (NoSuchAlgorithmException | IOException | InvalidKeySpecException e) {
+            } catch (InvalidKeySpecException e) {
+                log.error("Key files {} and {} are not {} keys", publicKeyFile.getAbsolutePath(), privateKeyFile.getAbsolutePath(), keyAlgorithm(), e);
+                throw new KeyInitializationException("Key files do not match JWT algorithm " + signatureAlgorithm, e);
+            } catch (NoSuchAlgorithmException | IOException e) {
             	 log.error("Failed to initialize key pair from files: {} and {}. Exception: {}", publicKeyFile.getAbsolutePath(), privateKeyFile.getAbsolutePath(), e.getMessage(), e);
                  throw new KeyInitializationException("Failed to initialize key pair", e);
             }
@@ -96,8 +115,12 @@ public class KeyUtils {
         }
         try {
             //log.info("Generating new public and private keys: {}, {}", publicKeyPath, privateKeyPath);
-            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-            keyPairGenerator.initialize(2048);
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(keyAlgorithm());
+            if (signatureAlgorithm == SignatureAlgorithm.ES256) {
+                keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                keyPairGenerator.initialize(2048);
+            }
             keyPair = keyPairGenerator.generateKeyPair();
             try (FileOutputStream fos = new FileOutputStream(publicKeyPath)) {
                 X509EncodedKeySpec keySpec = new X509EncodedKeySpec(keyPair.getPublic().getEncoded());
@@ -108,7 +131,7 @@ public class KeyUtils {
                 PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(keyPair.getPrivate().getEncoded());
                 fos.write(keySpec.getEncoded());
             }
-        } catch (NoSuchAlgorithmException | IOException e) {
+        } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException | IOException e) {
             throw new RuntimeException(e);
         }
 
@@ -116,16 +139,16 @@ public class KeyUtils {
     }
 
 
-    public RSAPublicKey getAccessTokenPublicKey() {
-        return (RSAPublicKey) getAccessTokenKeyPair().getPublic();
+    public PublicKey getAccessTokenPublicKey() {
+        return getAccessTokenKeyPair().getPublic();
     };
-    public RSAPrivateKey getAccessTokenPrivateKey() {
-        return (RSAPrivateKey) getAccessTokenKeyPair().getPrivate();
+    public PrivateKey getAccessTokenPrivateKey() {
+        return getAccessTokenKeyPair().getPrivate();
     };
-    public RSAPublicKey getRefreshTokenPublicKey() {
-        return (RSAPublicKey) getRefreshTokenKeyPair().getPublic();
+    public PublicKey getRefreshTokenPublicKey() {
+        return getRefreshTokenKeyPair().getPublic();
     };
-    public RSAPrivateKey getRefreshTokenPrivateKey() {
-        return (RSAPrivateKey) getRefreshTokenKeyPair().getPrivate();
+    public PrivateKey getRefreshTokenPrivateKey() {
+        return getRefreshTokenKeyPair().getPrivate();
     };
 }
\ No newline at end of file
@@ -1,7 +1,16 @@
 package me.trihung.auth;
 
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -24,12 +33,20 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import me.trihung.service.CustomUserDetailService;
 import static org.springframework.security.config.Customizer.withDefaults;
@@ -54,6 +71,14 @@ public class SecurityConfig {
 //	private UrlBasedCorsConfigurationSource corsConfigurationSource;
 	@Autowired
 	private CorsConfigurationSource configurationSource;
+	@Autowired
+	private ObjectProvider<MeterRegistry> meterRegistry;
+
+	@Value("${app.security.jwt-cache.enabled:true}")
+	private boolean jwtCacheEnabled;
+
+	@Value("${app.security.jwt-cache.max-size:10000}")
+	private long jwtCacheMaxSize;
 	
 
 	private String[] publicApi = { "/api/v1/auth/refresh", "/api/v1/auth/login", "/api/v1/auth/register" };
@@ -95,14 +120,20 @@ public class SecurityConfig {
 	@Bean
 	@Primary
 	JwtDecoder jwtAccessTokenDecoder() {
-		return NimbusJwtDecoder.withPublicKey(keyUtils.getAccessTokenPublicKey()).build();
+		JwtDecoder decoder = jwtDecoder(keyUtils.getAccessTokenPublicKey());
+		if (!jwtCacheEnabled) {
+			return decoder;
+		}
+		// Cache token đã verify tới exp, số hit/miss xem ở metric cache.gets{cache=jwtAccessToken}
+		CachingJwtDecoder cachingDecoder = new CachingJwtDecoder(decoder, jwtCacheMaxSize);
+		meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cachingDecoder.getCache(), "jwtAccessToken"));
+		return cachingDecoder;
 	}
 
 	@Bean
 	@Primary
 	JwtEncoder jwtAccessTokenEncoder() {
-		JWK jwk = new RSAKey.Builder(keyUtils.getAccessTokenPublicKey()).privateKey(keyUtils.getAccessTokenPrivateKey())
-				.build();
+		JWK jwk = signingKey(keyUtils.getAccessTokenPublicKey(), keyUtils.getAccessTokenPrivateKey());
 		JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(jwk));
 		return new NimbusJwtEncoder(jwks);
 	}
@@ -110,18 +141,40 @@ public class SecurityConfig {
 	@Bean
 	@Qualifier("jwtRefreshTokenDecoder")
 	JwtDecoder jwtRefreshTokenDecoder() {
-		return NimbusJwtDecoder.withPublicKey(keyUtils.getRefreshTokenPublicKey()).build();
+		return jwtDecoder(keyUtils.getRefreshTokenPublicKey());
 	}
 
 	@Bean
 	@Qualifier("jwtRefreshTokenEncoder")
 	JwtEncoder jwtRefreshTokenEncoder() {
-		JWK jwk = new RSAKey.Builder(keyUtils.getRefreshTokenPublicKey())
-				.privateKey(keyUtils.getRefreshTokenPrivateKey()).build();
+		JWK jwk = signingKey(keyUtils.getRefreshTokenPublicKey(), keyUtils.getRefreshTokenPrivateKey());
 		JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(jwk));
 		return new NimbusJwtEncoder(jwks);
 	}
 
+	// Key ký token theo thuật toán cấu hình trong KeyUtils (RSA hoặc EC P-256)
+	static JWK signingKey(PublicKey publicKey, PrivateKey privateKey) {
+		if (publicKey instanceof ECPublicKey ecPublicKey) {
+			return new ECKey.Builder(Curve.P_256, ecPublicKey).privateKey((ECPrivateKey) privateKey).build();
+		}
+		return new RSAKey.Builder((RSAPublicKey) publicKey).privateKey((RSAPrivateKey) privateKey).build();
+	}
+
+	static JwtDecoder jwtDecoder(PublicKey publicKey) {
+		if (publicKey instanceof RSAPublicKey rsaPublicKey) {
+			return NimbusJwtDecoder.withPublicKey(rsaPublicKey).build();
+		}
+		// NimbusJwtDecoder không có builder cho public key EC, tự dựng JWTProcessor chỉ nhận ES256
+		ECKey ecKey = new ECKey.Builder(Curve.P_256, (ECPublicKey) publicKey).build();
+		DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(
+				new JWSVerificationKeySelector<>(JWSAlgorithm.ES256, new ImmutableJWKSet<>(new JWKSet(ecKey))));
+		// Thời hạn token do validator mặc định của NimbusJwtDecoder kiểm tra
+		jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+		});
+		return new NimbusJwtDecoder(jwtProcessor);
+	}
+
 	@Bean
 	@Qualifier("jwtRefreshTokenAuthProvider")
 	JwtAuthenticationProvider jwtRefreshTokenAuthProvider() {
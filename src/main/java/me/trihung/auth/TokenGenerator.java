@@ -4,10 +4,13 @@ import java.text.MessageFormat;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
@@ -18,7 +21,6 @@ import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
 import me.trihung.dto.TokenDTO;
-import me.trihung.entity.User;
 
 @Component
 @Slf4j
@@ -30,32 +32,39 @@ public class TokenGenerator {
     @Autowired
     @Qualifier("jwtRefreshTokenEncoder")
     JwtEncoder refreshTokenEncoder;
-    
-    private String createAccessToken(Authentication authentication) {
-        UserDetails user = (UserDetails) authentication.getPrincipal();
-        Instant now = Instant.now();
 
-        JwtClaimsSet claimsSet = JwtClaimsSet.builder()
-                .issuer(user.getUsername())
-                .issuedAt(now)
-                .expiresAt(now.plus(5, ChronoUnit.MINUTES))
-                .subject(user.getUsername())
-                .build();
+    @Autowired
+    KeyUtils keyUtils;
+
+    // NimbusJwtEncoder mặc định ký RS256, phải khai báo alg khi dùng key EC
+    private JwtEncoderParameters parameters(JwtClaimsSet claimsSet) {
+        return JwtEncoderParameters.from(JwsHeader.with(keyUtils.getSignatureAlgorithm()).build(), claimsSet);
+    }
+    
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
 
-        return accessTokenEncoder.encode(JwtEncoderParameters.from(claimsSet)).getTokenValue();
+    private String createAccessToken(Authentication authentication) {
+        return createAccessToken((UserDetails) authentication.getPrincipal());
     }
     
     public String createAccessToken(UserDetails userDetails) {
         Instant now = Instant.now();
 
-        JwtClaimsSet claimsSet = JwtClaimsSet.builder()
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
                 .issuer(userDetails.getUsername())
                 .issuedAt(now)
                 .expiresAt(now.plus(5, ChronoUnit.MINUTES))
-                .subject(userDetails.getUsername())
-                .build();
+                .subject(userDetails.getUsername());
+        // Ghi id và role vào token để các request sau không phải đọc lại user từ DB
+        if (userDetails instanceof AuthenticatedUser user) {
+            if (user.getId() != null) {
+                claims.claim(CLAIM_USER_ID, user.getId().toString());
+            }
+            claims.claim(CLAIM_ROLES, List.copyOf(user.getRoles()));
+        }
 
-        return accessTokenEncoder.encode(JwtEncoderParameters.from(claimsSet)).getTokenValue();
+        return accessTokenEncoder.encode(parameters(claims.build())).getTokenValue();
     }
     
     private String createRefreshToken(Authentication authentication) {
@@ -70,7 +79,7 @@ public class TokenGenerator {
                 .subject(user.getUsername())
                 .build();
 
-        return refreshTokenEncoder.encode(JwtEncoderParameters.from(claimsSet)).getTokenValue();
+        return refreshTokenEncoder.encode(parameters(claimsSet)).getTokenValue();
     }
     public TokenDTO createToken(Authentication authentication) {
         if (!(authentication.getPrincipal() instanceof UserDetails user)) {
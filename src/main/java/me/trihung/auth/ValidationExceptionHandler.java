@@ -9,9 +9,11 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
 import me.trihung.exception.BadRequestException;
+import me.trihung.exception.ServiceBusyException;
 import me.trihung.exception.UnauthorizedException;
 
 @ControllerAdvice
@@ -54,4 +56,22 @@ public class ValidationExceptionHandler {
             .body(ex);
     }
 
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<?> handleUploadTooLarge(MaxUploadSizeExceededException ex) {
+        return ResponseEntity
+            .status(HttpStatus.PAYLOAD_TOO_LARGE)
+            .body(BadRequestException.builder()
+                    .code(HttpStatus.PAYLOAD_TOO_LARGE.value())
+                    .message("Dung lượng upload vượt quá giới hạn cho phép")
+                    .build());
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<?> handleServiceBusy(ServiceBusyException ex) {
+        return ResponseEntity
+            .status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header("Retry-After", "1")
+            .body(ex);
+    }
+
 }
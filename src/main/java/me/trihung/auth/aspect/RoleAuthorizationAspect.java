@@ -8,6 +8,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import me.trihung.auth.AuthenticatedUser;
 import me.trihung.auth.annotation.HasAnyRole;
 import me.trihung.exception.UnauthorizedException;
 
@@ -29,9 +30,12 @@ public class RoleAuthorizationAspect {
             throw UnauthorizedException.message("User is not authenticated");
         }
 
-        Collection<String> authorities = authentication.getAuthorities().stream()
-                .map(auth -> auth.getAuthority().replace("SCOPE_", ""))
-                .toList();
+        // Role lấy thẳng từ principal dựng từ claim của token, không cần tra DB
+        Collection<String> authorities = authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.getRoles()
+                : authentication.getAuthorities().stream()
+                        .map(auth -> auth.getAuthority().replace("SCOPE_", ""))
+                        .toList();
 
         boolean hasRequiredRole = authorities.stream()
                 .anyMatch(authority -> Arrays.stream(hasAnyRole.value())
@@ -0,0 +1,45 @@
+package me.trihung.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Cache của Spring dùng Caffeine. Interceptor cache chạy ngoài cùng (trước cả transaction
+ * và DatabaseConcurrencyAspect) nên cache hit không mở transaction, và @CacheEvict chạy
+ * sau khi transaction đã commit.
+ * Các cache được khai báo sẵn tên để Spring Boot gắn metric cache.gets/cache.evictions lúc khởi động.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    // EventDto của event PUBLISHED theo id
+    public static final String PUBLISHED_EVENTS = "publishedEvents";
+    // JSON/gzip đã serialize sẵn của event PUBLISHED kèm ETag (EventJsonService)
+    public static final String PUBLISHED_EVENT_JSON = "publishedEventJson";
+
+    @Bean
+    CacheManager cacheManager(
+            @Value("${app.cache.published-events.max-size:1000}") long maxSize,
+            @Value("${app.cache.published-events.ttl:30s}") Duration ttl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // TTL cũng là giới hạn thời gian soldTickets trong cache được phép cũ so với DB
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        cacheManager.setCacheNames(List.of(PUBLISHED_EVENTS, PUBLISHED_EVENT_JSON));
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+}
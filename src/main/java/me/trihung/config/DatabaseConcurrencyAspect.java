@@ -0,0 +1,83 @@
+package me.trihung.config;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import lombok.extern.slf4j.Slf4j;
+import me.trihung.exception.ServiceBusyException;
+
+/**
+ * Giới hạn số luồng đang làm việc với DB cùng lúc bằng semaphore có số permit bằng
+ * kích thước pool Hikari. Với virtual thread, số request chờ I/O gần như không giới hạn,
+ * nếu không chặn ở đây thì chúng chỉ dồn vào chờ lấy connection rồi timeout.
+ * Chạy bên ngoài transaction (order cao hơn TransactionInterceptor) nên permit được
+ * lấy trước khi mượn connection; chỉ lời gọi ngoài cùng của mỗi luồng giữ permit.
+ * Chỉ áp dụng cho luồng xử lý request: các job nền (scheduler, ghi batch giữ chỗ)
+ * đã bị giới hạn bởi pool riêng và có thể đang được chính request chờ kết quả.
+ * Chạy ngay sau interceptor cache (CacheConfig) để cache hit không cần permit.
+ * Permit chỉ giới hạn được connection khi open-in-view tắt: connection được trả khi
+ * transaction/câu query ngoài cùng kết thúc, cùng lúc với permit.
+ * Chỉ bật khi virtual thread thực sự chạy (JDK 21+), trên JDK 17 pool Tomcat đã giới hạn sẵn.
+ * Đo tải so với pool platform thread bằng DatabaseConcurrencyLoadHarness (src/test).
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class DatabaseConcurrencyAspect {
+
+    private final ThreadLocal<Integer> depth = ThreadLocal.withInitial(() -> 0);
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+
+    public DatabaseConcurrencyAspect(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${app.db.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        this.permits = new Semaphore(poolSize, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Around("(within(me.trihung..*) && (@annotation(org.springframework.transaction.annotation.Transactional) "
+            + "|| @within(org.springframework.transaction.annotation.Transactional))) "
+            + "|| target(org.springframework.data.repository.Repository)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        int current = depth.get();
+        if (current > 0 || RequestContextHolder.getRequestAttributes() == null) {
+            return proceedNested(joinPoint, current);
+        }
+        if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("No DB permit within {} ms for {}", acquireTimeoutMs, joinPoint.getSignature().toShortString());
+            throw ServiceBusyException.message("Hệ thống đang quá tải, vui lòng thử lại sau");
+        }
+        try {
+            return proceedNested(joinPoint, current);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Object proceedNested(ProceedingJoinPoint joinPoint, int current) throws Throwable {
+        depth.set(current + 1);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (current == 0) {
+                depth.remove();
+            } else {
+                depth.set(current);
+            }
+        }
+    }
+}
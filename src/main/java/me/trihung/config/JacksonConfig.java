@@ -0,0 +1,18 @@
+package me.trihung.config;
+
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+@Configuration
+public class JacksonConfig {
+
+    // Class có @JsonFilter (EventDto) được serialize đầy đủ khi response không chỉ định filter,
+    // chỉ các endpoint nhận tham số fields mới gắn filter qua MappingJacksonValue
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer defaultFilterProvider() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+}
@@ -0,0 +1,10 @@
+package me.trihung.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+
+// Tách khỏi class main: test slice (@DataJpaTest...) đọc annotation trên class main và sẽ lỗi vì không có Mongo
+@Configuration
+@EnableMongoAuditing
+public class MongoConfig {
+}
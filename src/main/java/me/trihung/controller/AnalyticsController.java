@@ -3,18 +3,23 @@ package me.trihung.controller;
 import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
+import me.trihung.auth.annotation.HasAnyRole;
 import me.trihung.dto.EventTypeRevenueDto;
 import me.trihung.dto.RevenueDataDto;
 import me.trihung.dto.TopEventDto;
 import me.trihung.service.AnalyticsService;
+import me.trihung.service.RevenueRollupService;
 
 @RestController
 @PreAuthorize("isAuthenticated()")
@@ -23,6 +28,7 @@ import me.trihung.service.AnalyticsService;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final RevenueRollupService revenueRollupService;
 
     @GetMapping("/revenue-data")
     public ResponseEntity<List<RevenueDataDto>> getRevenueData(
@@ -49,4 +55,16 @@ public class AnalyticsController {
         List<TopEventDto> data = analyticsService.getTopEvents(queryYear);
         return ResponseEntity.ok(data);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Dựng lại bảng doanh thu theo ngày từ orders, không truyền ngày thì dựng lại toàn bộ")
+    @HasAnyRole({ "ADMIN" })
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Integer> rebuildRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from == null) {
+            return ResponseEntity.ok(revenueRollupService.rebuildAll());
+        }
+        return ResponseEntity.ok(revenueRollupService.rebuild(from, to == null ? LocalDate.now() : to));
+    }
+}
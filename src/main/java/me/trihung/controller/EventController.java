@@ -1,21 +1,39 @@
 package me.trihung.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.SneakyThrows;
 import me.trihung.dto.EventDto;
 import me.trihung.dto.EventPageResponse;
+import me.trihung.dto.EventSliceResponse;
+import me.trihung.dto.EventSummaryPageResponse;
 import me.trihung.dto.request.EventRequest;
+import me.trihung.service.EventJsonService;
+import me.trihung.service.EventJsonService.SerializedEvent;
 import me.trihung.service.EventService;
+import me.trihung.service.EventUploadService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -23,9 +41,15 @@ import java.util.UUID;
  
 public class EventController {
 
+    @Autowired
+    private EventUploadService eventUploadService;
+
     @Autowired
     private EventService eventService;
 
+    @Autowired
+    private EventJsonService eventJsonService;
+
     @Autowired
     private ObjectMapper objectMapper; 
     
@@ -73,45 +97,130 @@ public class EventController {
         return new ResponseEntity<>(savedDraft, HttpStatus.OK);
     }
     
-    @Operation(summary = "Trả về dánh sách event theo user đã authen")
+    @Operation(summary = "Tạo mới event, đọc upload theo kiểu stream (part eventData, eventImage, eventBanner, organizerLogo)")
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping(value = "/stream", consumes = { MediaType.MULTIPART_FORM_DATA_VALUE })
+    public ResponseEntity<EventDto> createEventStreamed(HttpServletRequest request) {
+        // Ảnh được lưu xong trong lúc đọc body, trước khi mở transaction tạo event
+        EventRequest requestDto = eventUploadService.readEventRequest(request);
+        EventDto createdEvent = eventService.createEvent(requestDto);
+        return new ResponseEntity<>(createdEvent, HttpStatus.CREATED);
+    }
+
+    @Operation(summary = "Lưu nháp event, đọc upload theo kiểu stream")
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping(value = "/draft/stream", consumes = { MediaType.MULTIPART_FORM_DATA_VALUE })
+    public ResponseEntity<EventDto> saveDraftStreamed(HttpServletRequest request) {
+        EventRequest requestDto = eventUploadService.readEventRequest(request);
+        EventDto savedDraft = eventService.saveDraft(requestDto);
+        return new ResponseEntity<>(savedDraft, HttpStatus.OK);
+    }
+    
+    @Operation(summary = "Trả về dánh sách event theo user đã authen", responses = @ApiResponse(responseCode = "200",
+            content = @Content(schema = @Schema(implementation = EventPageResponse.class))))
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/page")
-    public ResponseEntity<EventPageResponse> getEventsPaged(
+    public ResponseEntity<MappingJacksonValue> getEventsPaged(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "ALL") String status,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDirection
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @RequestParam(defaultValue = "false") boolean includeGeometry,
+            @RequestParam(required = false) Set<String> fields
     ) {
-        EventPageResponse response = eventService.getEventsPaged(page, size, status, search, sortBy, sortDirection, true);
-        return ResponseEntity.status(200).body(response);
+        EventPageResponse response = eventService.getEventsPaged(page, size, status, search, sortBy, sortDirection, true, includeGeometry);
+        return ResponseEntity.status(200).body(withFields(response, fields));
     }
     
-    @Operation(summary = "Trả về dánh sách event đã published")
+    @Operation(summary = "Trả về dánh sách event đã published", responses = @ApiResponse(responseCode = "200",
+            content = @Content(schema = @Schema(implementation = EventPageResponse.class))))
     @GetMapping("/pagepublic")
-    public ResponseEntity<EventPageResponse> getEventsPagedPublic(
+    public ResponseEntity<MappingJacksonValue> getEventsPagedPublic(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @RequestParam(defaultValue = "false") boolean includeGeometry,
+            @RequestParam(required = false) Set<String> fields
+    ) {
+        EventPageResponse response = eventService.getEventsPaged(page, size, "PUBLISHED", search, sortBy, sortDirection, false, includeGeometry);
+        return ResponseEntity.ok(withFields(response, fields));
+    }
+    
+    @Operation(summary = "Danh sách rút gọn event đã published (tên, ảnh, ngày, địa điểm, khoảng giá) cho trang chủ")
+    @GetMapping("/pagepublic/summary")
+    public ResponseEntity<EventSummaryPageResponse> getEventSummariesPublic(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String sortBy,
             @RequestParam(defaultValue = "DESC") String sortDirection
     ) {
-        EventPageResponse response = eventService.getEventsPaged(page, size, "PUBLISHED", search, sortBy, sortDirection, false);
+        EventSummaryPageResponse response = eventService.getPublishedEventSummaries(page, size, search, sortBy, sortDirection);
+        return ResponseEntity.ok(response);
+    }
+    
+    @Operation(summary = "Trả về event đã published theo cursor (infinite scroll), không đếm tổng số")
+    @GetMapping("/pagepublic/scroll")
+    public ResponseEntity<EventSliceResponse> scrollEventsPublic(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @RequestParam(defaultValue = "false") boolean includeGeometry
+    ) {
+        EventSliceResponse response = eventService.scrollPublishedEvents(cursor, size, search, sortBy, sortDirection, includeGeometry);
         return ResponseEntity.ok(response);
     }
     
+    // fields=eventName,eventImage,... chỉ trả về các field đã chọn của từng event (luôn kèm id)
+    private MappingJacksonValue withFields(Object body, Set<String> fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (fields != null && !fields.isEmpty()) {
+            Set<String> selected = new HashSet<>(fields);
+            selected.add("id");
+            value.setFilters(new SimpleFilterProvider().addFilter(EventDto.FIELDS_FILTER,
+                    SimpleBeanPropertyFilter.filterOutAllExcept(selected)));
+        }
+        return value;
+    }
+    
 //    @GetMapping
 //    public ResponseEntity<List<EventDto>> getAllEvents() {
 //        List<EventDto> events = eventService.getAllEvents();
 //        return ResponseEntity.ok(events);
 //    }
     
-    @Operation(summary = "Lấy thông tin chi tiết về event")
+    @Operation(summary = "Lấy thông tin chi tiết về event", responses = @ApiResponse(responseCode = "200",
+            content = @Content(schema = @Schema(implementation = EventDto.class))))
     @GetMapping("/{id}")
-    public ResponseEntity<EventDto> getEventById(@PathVariable UUID id) {
-        EventDto event = eventService.getEventById(id);
-        return ResponseEntity.ok(event);
+    public ResponseEntity<byte[]> getEventById(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            ServletWebRequest webRequest
+    ) {
+        // Client gửi lại đúng ETag của bản đang cache thì trả 304 luôn, không chạm DB
+        Optional<String> cachedEtag = eventJsonService.findCachedEtag(id);
+        if (cachedEtag.isPresent() && webRequest.checkNotModified(cachedEtag.get())) {
+            return null;
+        }
+        SerializedEvent event = eventJsonService.getEventJson(id);
+        if (webRequest.checkNotModified(event.etag())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(event.etag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (event.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(event.gzip());
+        }
+        return response.body(event.json());
     }
     
     @Operation(summary = "Xóa event")
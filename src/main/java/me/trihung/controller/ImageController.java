@@ -1,59 +1,74 @@
 package me.trihung.controller;
 
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import me.trihung.enums.ImageSize;
+import me.trihung.helper.StaticFileWriter;
+import me.trihung.service.BlobStorage;
+import me.trihung.service.ImageVariantService;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
 
 @RestController
-@RequestMapping("/api/v1") // Using a common base path
 public class ImageController {
 
-    private final Path fileStorageLocation;
+    @Autowired
+    private ImageVariantService imageVariantService;
 
-    public ImageController() {
-        // This path MUST match the one in your FileStorageServiceImpl
-        this.fileStorageLocation = Paths.get("uploads").toAbsolutePath().normalize();
-    }
-    
-    @Operation(summary = "lấy hình ảnh theo tên file")
-
-    @GetMapping("/uploads/{filename:.+}")
-    public ResponseEntity<Resource> serveFile(@PathVariable String filename) {
-        try {
-            Path filePath = this.fileStorageLocation.resolve(filename).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                String contentType = "application/octet-stream"; 
-                try {
-                    contentType = Files.probeContentType(filePath);
-                } catch (IOException ex) {
-                    // Log this error but continue with the fallback
-                }
- 
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                        .body(resource);
+    @Autowired
+    private StaticFileWriter staticFileWriter;
+
+    @Autowired
+    private BlobStorage blobStorage;
+
+    @Operation(summary = "lấy hình ảnh theo tên file, size = thumb | card | full để lấy bản thu nhỏ")
+
+    // /uploads/** là đường dẫn lưu trong DB (eventImage, logo...), giữ nguyên dù ảnh nằm trên đĩa hay S3
+    @GetMapping({ "/api/v1/uploads/{filename:.+}", "/uploads/{filename:.+}" })
+    public void serveFile(@PathVariable String filename,
+            @RequestParam(required = false) String size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (filename.contains("/") || filename.contains("\\") || filename.startsWith(".")) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        String key = filename;
+        CacheControl cacheControl = StaticFileWriter.IMMUTABLE;
+        ImageSize imageSize = size == null ? null : ImageSize.fromValue(size);
+        if (imageSize != null) {
+            Optional<String> variant = imageVariantService.findVariant(key, imageSize);
+            if (variant.isPresent()) {
+                key = variant.get();
             } else {
-                return ResponseEntity.notFound().build();
+                // Bản thu nhỏ chưa tạo xong (hoặc file không phải ảnh) thì trả về file gốc,
+                // không cho cache lâu để lần sau lấy được bản thu nhỏ
+                cacheControl = CacheControl.noCache();
             }
-        } catch (MalformedURLException ex) {
-            return ResponseEntity.badRequest().build();
+        }
+        // S3 với read-mode = presign: client tải thẳng từ S3, redirect chỉ được cache ngắn hơn hạn của URL
+        Optional<URI> directUrl = blobStorage.directReadUrl(key);
+        if (directUrl.isPresent()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl == StaticFileWriter.IMMUTABLE
+                    ? CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic().getHeaderValue()
+                    : cacheControl.getHeaderValue());
+            response.sendRedirect(directUrl.get().toString());
+            return;
+        }
+        if (!staticFileWriter.write(key, cacheControl, request, response)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
         }
     }
-}
\ No newline at end of file
+}
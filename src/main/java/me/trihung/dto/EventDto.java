@@ -7,6 +7,7 @@ import java.time.LocalTime;
 import java.util.List;
 import java.util.UUID;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 import lombok.Data;
@@ -15,7 +16,10 @@ import me.trihung.enums.Shape;
 
 
 @Data
+@JsonFilter(EventDto.FIELDS_FILTER) // Cho phép chọn field trả về (tham số fields ở các API danh sách)
 public class EventDto {
+    public static final String FIELDS_FILTER = "eventFields";
+
     private UUID id;
     private String eventName;
     private String eventImage; 
@@ -0,0 +1,17 @@
+package me.trihung.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventSliceResponse {
+    private List<EventDto> events;
+    // Truyền lại vào tham số cursor để lấy trang tiếp theo, null khi đã hết
+    private String nextCursor;
+    private boolean hasNext;
+    private int pageSize;
+}
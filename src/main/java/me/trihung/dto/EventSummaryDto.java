@@ -0,0 +1,35 @@
+package me.trihung.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.trihung.enums.EventStatus;
+
+// Thông tin tối thiểu để hiển thị 1 event trong danh sách, lấy trực tiếp bằng constructor expression
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventSummaryDto {
+    private UUID id;
+    private String eventName;
+    private String eventImage;
+    private String eventCategory;
+    private String slug;
+    private LocalDate startDate;
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime startTime;
+    private LocalDate endDate;
+    private String venueProvince;
+    private String venueAddress;
+    private Integer totalSeats;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private EventStatus eventStatus;
+}
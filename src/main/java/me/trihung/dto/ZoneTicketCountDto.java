@@ -0,0 +1,18 @@
+package me.trihung.dto;
+
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//Số lượng vé gom theo zone (vé còn trống, vé đang giữ...) dùng cho các query tổng hợp
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ZoneTicketCountDto {
+    private UUID zoneId;
+    private Long quantity;
+}
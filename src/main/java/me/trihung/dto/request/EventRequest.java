@@ -31,6 +31,13 @@ public class EventRequest {
     @JsonIgnore
     private MultipartFile eventBanner;
 
+    // Đường dẫn ảnh đã được lưu sẵn khi đọc stream upload (POST /events/stream), thay cho eventImage/eventBanner
+    @JsonIgnore
+    private String eventImageUrl;
+
+    @JsonIgnore
+    private String eventBannerUrl;
+
     @NotBlank(message = "Vui lòng chọn thể loại sự kiện")
     private String eventCategory; 
 
@@ -94,6 +101,9 @@ public class EventRequest {
         @NotNull(message = "Logo ban tổ chức là bắt buộc")
         @JsonIgnore
         private MultipartFile logo;
+
+        @JsonIgnore
+        private String logoUrl;
     }
     
     @Data
@@ -0,0 +1,38 @@
+package me.trihung.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Doanh thu gộp sẵn theo ngày + event, được cộng dồn khi tạo order (OrderServiceImpl) và dựng lại từ bảng orders
+// bằng RevenueRollupService.rebuild. Trang thống kê đọc bảng này nên không phải quét toàn bộ orders.
+// eventCategory được chép từ event để lọc/gộp theo thể loại không cần join.
+// Mỗi (ngày, event) có tới app.analytics.rollup.shards dòng (xem DailyRevenueRollupId.shard), câu đọc luôn SUM qua các shard
+@Table(name = "daily_revenue_rollups", indexes = @Index(name = "idx_revenue_rollups_category_day", columnList = "event_category, revenue_day"))
+@Entity
+public class DailyRevenueRollup {
+    @EmbeddedId
+    private DailyRevenueRollupId id;
+    @Column(name = "event_category")
+    private String eventCategory;
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+    @Column(name = "ticket_count", nullable = false)
+    private Long ticketCount;
+    @Column(name = "revenue", nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
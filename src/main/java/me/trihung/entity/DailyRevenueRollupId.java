@@ -0,0 +1,25 @@
+package me.trihung.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class DailyRevenueRollupId implements Serializable {
+    @Column(name = "revenue_day", nullable = false)
+    private LocalDate day;
+    @Column(name = "event_id", nullable = false)
+    private UUID eventId;
+    // Mỗi (ngày, event) chia thành nhiều dòng theo hash của order id, để các order cùng event không chờ khóa 1 dòng
+    @Column(name = "shard", nullable = false)
+    private Short shard;
+}
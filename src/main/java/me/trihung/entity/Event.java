@@ -2,8 +2,10 @@ package me.trihung.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import me.trihung.enums.EventStatus;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
@@ -15,7 +17,9 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "idx_events_total_seats", columnList = "total_seats"),
+        @Index(name = "idx_events_status_total_seats", columnList = "status, total_seats") })
 @EqualsAndHashCode(onlyExplicitlyIncluded = true, callSuper = false)
 public class Event extends BaseEntity {
 
@@ -57,13 +61,25 @@ public class Event extends BaseEntity {
     @JoinColumn(name = "organizer_id")
     private Organizer organizer;
     
+    // Khi map 1 trang event, zones của cả trang được nạp bằng 1 câu IN thay vì 1 câu mỗi event
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<Zone> zones = new ArrayList<>();
     
     @Enumerated(EnumType.STRING) // Lưu giá trị số của enum (0, 1, 2...)
     @Column(name = "status")
     private EventStatus status = EventStatus.DRAFT; // Mặc định là DRAFT
 
+    // Tổng số ghế và tổng giá trị (price * maxTickets) của các zone, tính lại mỗi khi lưu event
+    // để sort/hiển thị không phải nạp zones
+    @Builder.Default
+    @Column(name = "total_seats", nullable = false, columnDefinition = "integer default 0")
+    private Integer totalSeats = 0;
+
+    @Builder.Default
+    @Column(name = "total_capacity_value", nullable = false, precision = 19, scale = 2, columnDefinition = "numeric(19,2) default 0")
+    private BigDecimal totalCapacityValue = BigDecimal.ZERO;
+
     // nhúng các field trong BankInfo vào trong này
     @Embedded
     private BankInfo bankInfo;
@@ -77,4 +93,19 @@ public class Event extends BaseEntity {
         zones.remove(zone);
         zone.setEvent(null);
     }
+
+    public void recalculateTotals() {
+        int seats = 0;
+        BigDecimal value = BigDecimal.ZERO;
+        if (zones != null) {
+            for (Zone zone : zones) {
+                int maxTickets = zone.getMaxTickets() != null ? zone.getMaxTickets() : 0;
+                BigDecimal price = zone.getPrice() != null ? zone.getPrice() : BigDecimal.ZERO;
+                seats += maxTickets;
+                value = value.add(price.multiply(BigDecimal.valueOf(maxTickets)));
+            }
+        }
+        this.totalSeats = seats;
+        this.totalCapacityValue = value;
+    }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -24,7 +25,9 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "refresh_token")
+// Chỉ lưu SHA-256 của token (64 ký tự hex) thay vì token gốc dài tới 1000 ký tự.
+// Bảng mới thay cho refresh_token cũ (cột token NOT NULL), token cũ hết hiệu lực và người dùng đăng nhập lại
+@Table(name = "refresh_tokens", indexes = @Index(name = "idx_refresh_tokens_expire_bucket", columnList = "expire_bucket"))
 @Entity
 public class RefreshToken extends BaseEntity {
     @Id
@@ -33,11 +36,15 @@ public class RefreshToken extends BaseEntity {
     private Long id;
     @Column(name = "username", nullable = false)
     private String username;
-    @Column(name = "token", nullable = false, unique = true, length = 1000)
-    private String token;
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
 
     @JsonSerialize(using = LocalDateTimeSerializer.class)
     @JsonDeserialize(using = LocalDateTimeDeserializer.class)
     @Column(name = "expire_time")
     private LocalDateTime expireTime;
+
+    // Ngày hết hạn tính theo epoch day, dọn token hết hạn bằng cách xóa cả bucket theo index
+    @Column(name = "expire_bucket", nullable = false)
+    private Long expireBucket;
 }
@@ -0,0 +1,32 @@
+package me.trihung.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// File upload lưu theo nội dung: tên file = SHA-256 + đuôi file, upload trùng nội dung chỉ tăng refCount.
+// refCount = số chỗ (ảnh event, banner, logo) đang dùng file, về 0 thì file có thể được dọn
+@Table(name = "stored_files")
+@Entity
+public class StoredFile extends BaseEntity {
+    @Id
+    @Column(name = "file_name", length = 80)
+    private String fileName;
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+}
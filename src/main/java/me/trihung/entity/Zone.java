@@ -5,6 +5,9 @@ import jakarta.persistence.*;
 import lombok.*;
 import me.trihung.enums.Shape;
 
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import java.math.BigDecimal;
 import java.util.UUID;
 
@@ -41,7 +44,10 @@ public class Zone extends BaseEntity {
     
     private Double rotation;
 
-    @Lob // Dùng @Lob hoặc @Column(columnDefinition = "TEXT") để lưu chuỗi JSON dài
+    // Tọa độ dạng JSON lưu trong cột jsonb nằm ngay trên dòng zones (cột @Lob cũ trên Postgres là large object,
+    // phải đọc riêng từng dòng). Dữ liệu cột cũ "coordinates" được chép sang rồi drop bởi ZoneGeometryBackfill
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "coordinates_json", columnDefinition = "jsonb")
     private String coordinates; 
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -51,4 +57,9 @@ public class Zone extends BaseEntity {
     
     @Column(nullable = false)
     private Integer soldTickets = 0;
+
+    // Số vé đang được giữ chỗ (chưa thanh toán), cập nhật cùng transaction với bảng reservations
+    @Builder.Default
+    @Column(name = "held_tickets", nullable = false, columnDefinition = "integer default 0")
+    private Integer heldTickets = 0;
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package me.trihung.enums;
+
+// Các bản thu nhỏ được tạo cho mỗi ảnh upload, maxDimension là cạnh dài nhất tối đa (px)
+public enum ImageSize {
+    THUMB("thumb", 200),
+    CARD("card", 800),
+    FULL("full", 1920);
+
+    private final String value;
+    private final int maxDimension;
+
+    ImageSize(String value, int maxDimension) {
+        this.value = value;
+        this.maxDimension = maxDimension;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public static ImageSize fromValue(String value) {
+        for (ImageSize size : values()) {
+            if (size.value.equalsIgnoreCase(value)) {
+                return size;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return this.value;
+    }
+}
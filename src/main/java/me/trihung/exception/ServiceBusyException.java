@@ -0,0 +1,20 @@
+package me.trihung.exception;
+
+import lombok.*;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ServiceBusyException extends RuntimeException {
+    private Integer code;
+    private String message;
+
+    public static ServiceBusyException message(String message) {
+        return ServiceBusyException.builder()
+                .code(503)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package me.trihung.helper;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import me.trihung.exception.BadRequestException;
+
+/**
+ * Mã hóa vị trí keyset (giá trị các cột sort của dòng cuối trang) thành cursor
+ * base64url mà client gửi lại để lấy trang tiếp theo.
+ */
+@Component
+public class ScrollCursorCodec {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded");
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(keyset.getKeys());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode scroll cursor", e);
+        }
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encode(ScrollPosition)}.
+     *
+     * @param cursor   The cursor from the client, blank for the first page
+     * @param keyTypes The sort properties in order with the type of each key
+     * @return The position to continue from
+     * @throws BadRequestException if the cursor is malformed or was issued for another sort
+     */
+    public KeysetScrollPosition decode(String cursor, Map<String, Class<?>> keyTypes) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> raw;
+        try {
+            raw = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), new TypeReference<Map<String, Object>>() {
+            });
+        } catch (IOException | IllegalArgumentException e) {
+            throw BadRequestException.message("Cursor không hợp lệ");
+        }
+        // Cursor của kiểu sort khác không dùng được cho kiểu sort hiện tại
+        if (raw == null || !raw.keySet().equals(keyTypes.keySet())) {
+            throw BadRequestException.message("Cursor không khớp với kiểu sắp xếp");
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            // JSON chỉ giữ kiểu chuỗi/số, đổi về đúng kiểu của thuộc tính để bind vào câu query
+            keyTypes.forEach((property, type) -> keys.put(property,
+                    raw.get(property) == null ? null : objectMapper.convertValue(raw.get(property), type)));
+        } catch (IllegalArgumentException e) {
+            throw BadRequestException.message("Cursor không hợp lệ");
+        }
+        return ScrollPosition.forward(keys);
+    }
+}
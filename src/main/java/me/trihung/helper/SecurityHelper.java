@@ -2,18 +2,29 @@ package me.trihung.helper;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import me.trihung.auth.AuthenticatedUser;
 import me.trihung.entity.User;
 import me.trihung.exception.UnauthorizedException;
 import me.trihung.repository.UserRepository;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Utility class for security-related operations.
@@ -24,15 +35,35 @@ import java.util.Optional;
 @Slf4j
 public class SecurityHelper {
 
+    private static final String CURRENT_USER_ATTRIBUTE = SecurityHelper.class.getName() + ".currentUser";
+
     private final UserRepository userRepository;
 
+    @Value("${app.security.user-cache.max-size:10000}")
+    private long userCacheMaxSize;
+
+    @Value("${app.security.user-cache.ttl:60s}")
+    private Duration userCacheTtl;
+
+    // Bản sao detached (không có password) của user theo username, dùng chung giữa các request
+    private Cache<String, User> userCache;
+
+    @PostConstruct
+    void initUserCache() {
+        userCache = Caffeine.newBuilder()
+                .maximumSize(userCacheMaxSize)
+                .expireAfterWrite(userCacheTtl)
+                .build();
+    }
+
     /**
-     * Get the currently authenticated user
+     * Get the currently authenticated user.
+     * The user is memoized for the current request and cached across requests by username,
+     * so repeated calls do not hit the database. The returned entity is detached.
      *
      * @return The current user
      * @throws UnauthorizedException if no user is authenticated
      */
-    @Transactional(readOnly = true)
     public User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
@@ -51,12 +82,82 @@ public class SecurityHelper {
         } else {
             username = principal.toString();
         }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User memo
+                && username.equals(memo.getUsername())) {
+            return memo;
+        }
         // Based on CustomUserDetailService, we're using username as the username
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UnauthorizedException("User not found from "+username));
+        User user = userCache.get(username, this::loadDetachedUser);
+        if (user == null) {
+            throw new UnauthorizedException("User not found from " + username);
+        }
+        if (request != null) {
+            request.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
         return user;
     }
 
+    /**
+     * Get the id of the currently authenticated user.
+     * Read from the access token claims, only tokens issued without the uid claim fall back to a user lookup.
+     *
+     * @return The current user id
+     * @throws UnauthorizedException if no user is authenticated
+     */
+    public UUID getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof AuthenticatedUser user && user.getId() != null) {
+            return user.getId();
+        }
+        return getCurrentUser().getId();
+    }
+
+    /**
+     * Get a lazy reference to the current user for use as the target of a JPA relation
+     * (owner of an event, reservation...). No query is issued unless a non-id field is accessed.
+     *
+     * @return A proxy of the current user
+     * @throws UnauthorizedException if no user is authenticated
+     */
+    public User getCurrentUserReference() {
+        return userRepository.getReferenceById(getCurrentUserId());
+    }
+
+    /**
+     * Drop the cached user, must be called after the user's password or roles change
+     *
+     * @param username The username to evict
+     */
+    public void evictUser(String username) {
+        userCache.invalidate(username);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.removeAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private User loadDetachedUser(String username) {
+        return userRepository.findByUsername(username)
+                .map(user -> {
+                    User copy = User.builder()
+                            .id(user.getId())
+                            .email(user.getEmail())
+                            .username(user.getUsername())
+                            .avatarUrl(user.getAvatarUrl())
+                            .fullName(user.getFullName())
+                            .roles(new HashSet<>(user.getRoles()))
+                            .build();
+                    copy.setCreatedDate(user.getCreatedDate());
+                    copy.setUpdatedDate(user.getUpdatedDate());
+                    copy.setCreatedBy(user.getCreatedBy());
+                    copy.setLastModifiedBy(user.getLastModifiedBy());
+                    return copy;
+                })
+                .orElse(null);
+    }
+
     /**
      * Check if the current user has a specific role
      *
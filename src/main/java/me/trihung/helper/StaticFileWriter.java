@@ -0,0 +1,244 @@
+package me.trihung.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import me.trihung.service.BlobStorage;
+import me.trihung.service.BlobStorage.BlobInfo;
+
+/**
+ * Ghi blob ra response: hỗ trợ If-None-Match/If-Modified-Since (304), Range 1 đoạn (206).
+ * Blob nằm trên đĩa (LocalBlobStorage) được gửi bằng sendfile của Tomcat hoặc FileChannel.transferTo
+ * thay vì copy qua buffer, backend khác thì đọc đúng đoạn cần gửi từ BlobStorage.
+ * Content-type, kích thước, thời gian sửa và ETag của mỗi blob được cache lại
+ * nên request lặp lại không phải stat file hay gọi HEAD tới S3.
+ */
+@Component
+@Slf4j
+public class StaticFileWriter {
+
+    // Các attribute sendfile của Tomcat NIO connector
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Tên file lưu là SHA-256 của nội dung (file upload trước đó là UUID) nên cùng tên thì cùng nội dung,
+    // cho trình duyệt cache 1 năm
+    public static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    @Value("${app.images.metadata-cache.max-size:10000}")
+    private long metadataCacheSize;
+
+    @Value("${app.images.metadata-cache.ttl:10m}")
+    private Duration metadataCacheTtl;
+
+    @Autowired
+    private BlobStorage blobStorage;
+
+    private Cache<String, FileMetadata> metadataCache;
+
+    @PostConstruct
+    void init() {
+        metadataCache = Caffeine.newBuilder()
+                .maximumSize(metadataCacheSize)
+                .expireAfterWrite(metadataCacheTtl)
+                .build();
+    }
+
+    /**
+     * Write the blob to the response, honouring conditional and single-range requests.
+     *
+     * @param key          The blob key in {@link BlobStorage}
+     * @param cacheControl Cache-Control of the response
+     * @return false if the blob does not exist, nothing has been written in that case
+     */
+    public boolean write(String key, CacheControl cacheControl, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        FileMetadata metadata = metadata(key);
+        if (metadata == null) {
+            return false;
+        }
+        // checkNotModified tự đặt ETag/Last-Modified và trả 304 (hoặc 412 với If-Match)
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(metadata.etag(), metadata.lastModified())) {
+            return true;
+        }
+        response.setContentType(metadata.contentType());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + key + "\"");
+
+        long length = metadata.length();
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, metadata)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return true;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return true;
+        }
+
+        Optional<Path> localPath = blobStorage.localPath(key);
+        if (localPath.isEmpty()) {
+            try (InputStream input = blobStorage.open(key, start, end)) {
+                input.transferTo(response.getOutputStream());
+            }
+            return true;
+        }
+        Path file = localPath.get();
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat gửi file bằng sendfile sau khi servlet trả về, không đi qua heap
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return true;
+        }
+        FileChannel opened;
+        try {
+            opened = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException ex) {
+            // Blob bị xóa từ instance khác khi metadata vẫn còn trong cache
+            evict(key);
+            response.reset();
+            return false;
+        }
+        try (FileChannel channel = opened) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+        return true;
+    }
+
+    // Gọi sau khi xóa hoặc ghi lại blob, không thì metadata cũ vẫn được trả tới khi hết TTL
+    public void evict(String key) {
+        metadataCache.invalidate(key);
+    }
+
+    private FileMetadata metadata(String key) {
+        FileMetadata cached = metadataCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<BlobInfo> info = blobStorage.stat(key);
+        if (info.isEmpty()) {
+            return null;
+        }
+        String contentType = info.get().contentType();
+        if (contentType == null) {
+            contentType = MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        }
+        long length = info.get().size();
+        long lastModified = info.get().lastModified().toEpochMilli();
+        // ETag mạnh từ kích thước + thời gian sửa, đủ để dùng với If-Range
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        FileMetadata metadata = new FileMetadata(contentType, length, lastModified, etag);
+        metadataCache.put(key, metadata);
+        return metadata;
+    }
+
+    // If-Range khác ETag/Last-Modified hiện tại thì bỏ qua Range và gửi cả file
+    private boolean rangeApplies(HttpServletRequest request, FileMetadata metadata) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(metadata.etag());
+        }
+        long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+        return since != -1 && metadata.lastModified() / 1000 <= since / 1000;
+    }
+
+    /**
+     * Parse a "bytes=" range header.
+     *
+     * @return {start, end} inclusive, an empty array to send the whole file
+     * (unsupported unit or multiple ranges), or null if the range cannot be satisfied
+     */
+    private long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // bytes=-N: N byte cuối
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException ex) {
+            return new long[0];
+        }
+    }
+
+    private record FileMetadata(String contentType, long length, long lastModified, String etag) {
+    }
+}
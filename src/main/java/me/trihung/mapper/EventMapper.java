@@ -3,12 +3,13 @@ package me.trihung.mapper;
 import me.trihung.dto.EventDto;
 import me.trihung.dto.request.EventRequest;
 import me.trihung.entity.Event;
-import me.trihung.entity.Zone;
 import org.mapstruct.AfterMapping;
 import org.mapstruct.BeanMapping;
+import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 
 import java.math.BigDecimal;
@@ -47,6 +48,20 @@ public interface EventMapper {
     EventDto toEventResponseDto(Event event);
  
     List<EventDto> toEventResponseDtoList(List<Event> events);
+
+    // Bản rút gọn cho danh sách: zones không kèm tọa độ
+    @Named("eventWithoutGeometry")
+    @Mapping(target = "eventStatus", source = "status")
+    @Mapping(target = "ownerId", source = "owner.id")
+    @Mapping(target = "zones", qualifiedByName = "zonesWithoutGeometry")
+    EventDto toEventDtoWithoutGeometry(Event event);
+
+    @IterableMapping(qualifiedByName = "eventWithoutGeometry")
+    List<EventDto> toEventDtoListWithoutGeometry(List<Event> events);
+
+    default List<EventDto> toEventDtoList(List<Event> events, boolean includeGeometry) {
+        return includeGeometry ? toEventResponseDtoList(events) : toEventDtoListWithoutGeometry(events);
+    }
     
     //Bỏ qua giá trị nào null từ src (request) không ghi đè lên target hiện có
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -55,28 +70,10 @@ public interface EventMapper {
     @Mapping(target = "organizer.logo", ignore = true)
     void updateEventFromRequest(EventRequest requestDto, @MappingTarget Event event);
 
+    // Đọc tổng đã lưu sẵn trên event, không duyệt zones cho mỗi DTO
     @AfterMapping
     default void calculateTotals(@MappingTarget EventDto dto, Event event) {
-        if (event.getZones() != null && !event.getZones().isEmpty()) {
-            // Cập nhật để dùng getMaxTickets()
-            int totalSeats = event.getZones().stream()
-                .mapToInt(zone -> zone.getMaxTickets() != null ? zone.getMaxTickets() : 0)
-                .sum();
-            
-            BigDecimal totalRevenue = event.getZones().stream()
-                .map(zone -> {
-                    BigDecimal price = zone.getPrice() != null ? zone.getPrice() : BigDecimal.ZERO;
-                    // Cập nhật để dùng getMaxTickets()
-                    BigDecimal tickets = new BigDecimal(zone.getMaxTickets() != null ? zone.getMaxTickets() : 0);
-                    return price.multiply(tickets);
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            dto.setTotalSeats(totalSeats);
-            dto.setTotalRevenue(totalRevenue);
-        } else {
-            dto.setTotalSeats(0);
-            dto.setTotalRevenue(BigDecimal.ZERO);
-        }
+        dto.setTotalSeats(event.getTotalSeats() != null ? event.getTotalSeats() : 0);
+        dto.setTotalRevenue(event.getTotalCapacityValue() != null ? event.getTotalCapacityValue() : BigDecimal.ZERO);
     }
 }
\ No newline at end of file
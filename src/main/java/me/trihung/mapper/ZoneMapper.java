@@ -2,12 +2,24 @@ package me.trihung.mapper;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import me.trihung.dto.EventDto;
 import me.trihung.dto.request.EventRequest;
 import me.trihung.entity.Zone;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import jakarta.annotation.PostConstruct;
 
 @Mapper(componentModel = "spring")
 public abstract class ZoneMapper {
@@ -15,14 +27,72 @@ public abstract class ZoneMapper {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Value("${app.cache.zone-geometry.max-size:20000}")
+    private long geometryCacheMaxSize;
+
+    // Tọa độ đã parse theo zone id + updatedDate, zone bị sửa thì có key mới nên không cần evict
+    private Cache<String, EventDto.CoordinatesDto> geometryCache;
+
+    @PostConstruct
+    void initGeometryCache() {
+        geometryCache = Caffeine.newBuilder().maximumSize(geometryCacheMaxSize).build();
+    }
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "event", ignore = true)
     @Mapping(target = "coordinates", expression = "java(toJson(zoneRequest.getCoordinates()))")
     public abstract Zone toZone(EventRequest.ZoneRequest zoneRequest);
 
-    @Mapping(target = "coordinates", expression = "java(fromJson(zone.getCoordinates()))")
+    @Mapping(target = "coordinates", expression = "java(coordinatesOf(zone))")
     public abstract EventDto.ZoneDto toZoneDto(Zone zone);
 
+    // Dùng cho danh sách event: không trả tọa độ nên cũng không parse JSON
+    @Named("zoneWithoutGeometry")
+    @Mapping(target = "coordinates", ignore = true)
+    public abstract EventDto.ZoneDto toZoneDtoWithoutGeometry(Zone zone);
+
+    @Named("zonesWithoutGeometry")
+    @IterableMapping(qualifiedByName = "zoneWithoutGeometry")
+    public abstract List<EventDto.ZoneDto> toZoneDtosWithoutGeometry(List<Zone> zones);
+
+    EventDto.CoordinatesDto coordinatesOf(Zone zone) {
+        if (zone.getId() == null || zone.getUpdatedDate() == null) {
+            return fromJson(zone.getCoordinates());
+        }
+        String key = zone.getId() + ":" + zone.getUpdatedDate();
+        EventDto.CoordinatesDto cached = geometryCache.getIfPresent(key);
+        if (cached == null) {
+            cached = fromJson(zone.getCoordinates());
+            if (cached == null) {
+                return null;
+            }
+            geometryCache.put(key, cached);
+        }
+        // DTO có setter, trả bản sao để response nào sửa tọa độ cũng không làm hỏng bản dùng chung trong cache
+        return copyOf(cached);
+    }
+
+    // Chép sâu (cả danh sách điểm), rẻ hơn nhiều so với parse lại JSON
+    static EventDto.CoordinatesDto copyOf(EventDto.CoordinatesDto source) {
+        EventDto.CoordinatesDto copy = new EventDto.CoordinatesDto();
+        copy.setX(source.getX());
+        copy.setY(source.getY());
+        copy.setWidth(source.getWidth());
+        copy.setHeight(source.getHeight());
+        copy.setRadius(source.getRadius());
+        if (source.getPoints() != null) {
+            List<EventDto.PointDto> points = new ArrayList<>(source.getPoints().size());
+            for (EventDto.PointDto point : source.getPoints()) {
+                EventDto.PointDto pointCopy = new EventDto.PointDto();
+                pointCopy.setX(point.getX());
+                pointCopy.setY(point.getY());
+                points.add(pointCopy);
+            }
+            copy.setPoints(points);
+        }
+        return copy;
+    }
+
    //Chuyển đổi ds tọa độ từ các object sang json để dễ lưu data vào db hơn
     String toJson(EventRequest.CoordinatesRequest coordinates) {
         if (coordinates == null) {
@@ -0,0 +1,133 @@
+package me.trihung.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import me.trihung.dto.EventTypeRevenueDto;
+import me.trihung.dto.RevenueDataDto;
+import me.trihung.dto.TopEventDto;
+import me.trihung.entity.DailyRevenueRollup;
+import me.trihung.entity.DailyRevenueRollupId;
+
+@Repository
+public interface DailyRevenueRollupRepository extends JpaRepository<DailyRevenueRollup, DailyRevenueRollupId> {
+
+	// Cộng 1 order vào dòng (ngày, event, shard), chạy trong transaction tạo order nên rollup và orders luôn khớp nhau.
+	// Shard lấy từ hash của order id (cùng công thức với rebuildRange), order cùng event chỉ chờ nhau khi trùng shard
+	@Modifying
+	@Query(value = """
+			INSERT INTO daily_revenue_rollups (revenue_day, event_id, shard, event_category, order_count, ticket_count, revenue)
+			SELECT :day, e.id, (hashtext(CAST(:orderId AS text)) & 2147483647) % :shards, e.event_category, 1, :tickets, :revenue
+			FROM events e
+			WHERE e.id = :eventId
+			ON CONFLICT (revenue_day, event_id, shard) DO UPDATE SET
+			    order_count = daily_revenue_rollups.order_count + 1,
+			    ticket_count = daily_revenue_rollups.ticket_count + EXCLUDED.ticket_count,
+			    revenue = daily_revenue_rollups.revenue + EXCLUDED.revenue,
+			    event_category = EXCLUDED.event_category
+			""", nativeQuery = true)
+	int addOrder(@Param("day") LocalDate day, @Param("eventId") UUID eventId, @Param("orderId") UUID orderId,
+			@Param("shards") int shards, @Param("tickets") long tickets, @Param("revenue") BigDecimal revenue);
+
+	// Khóa advisory chung cho cả bảng rollup, giữ tới hết transaction. Các order chỉ lấy khóa shared nên không
+	// chặn nhau, chỉ chờ khi đang rebuild (khóa exclusive)
+	@Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock_shared(hashtext('daily_revenue_rollups'))) l",
+			nativeQuery = true)
+	long lockForOrder();
+
+	@Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext('daily_revenue_rollups'))) l",
+			nativeQuery = true)
+	long lockForRebuild();
+
+	@Modifying
+	@Query("DELETE FROM DailyRevenueRollup r WHERE r.id.day >= :from AND r.id.day < :to")
+	int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+	// Dựng lại rollup của [from, to) từ bảng orders, chia shard giống addOrder. Phải gọi sau lockForRebuild
+	// trong cùng transaction: order nào đã cộng vào rollup thì đã commit nên có trong câu SELECT,
+	// order đến sau phải chờ rebuild commit rồi mới cộng vào dòng vừa dựng
+	@Modifying
+	@Query(value = """
+			INSERT INTO daily_revenue_rollups (revenue_day, event_id, shard, event_category, order_count, ticket_count, revenue)
+			SELECT CAST(o.created_at AS date), e.id, (hashtext(CAST(o.id AS text)) & 2147483647) % :shards,
+			       e.event_category, COUNT(*), SUM(o.quantity), SUM(o.total_amount)
+			FROM orders o
+			JOIN zones z ON o.zone_id = z.id
+			JOIN events e ON z.event_id = e.id
+			WHERE o.created_at >= :from AND o.created_at < :to
+			GROUP BY 1, 2, 3, 4
+			ON CONFLICT (revenue_day, event_id, shard) DO UPDATE SET
+			    order_count = EXCLUDED.order_count,
+			    ticket_count = EXCLUDED.ticket_count,
+			    revenue = EXCLUDED.revenue,
+			    event_category = EXCLUDED.event_category
+			""", nativeQuery = true)
+	int rebuildRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, @Param("shards") int shards);
+
+	@Query(value = "SELECT CAST(MIN(o.created_at) AS date) FROM orders o", nativeQuery = true)
+	Optional<LocalDate> findFirstOrderDay();
+
+	@Query(value = "SELECT EXISTS (SELECT 1 FROM daily_revenue_rollups)", nativeQuery = true)
+	boolean hasRollups();
+
+	@Query("""
+			    SELECT new me.trihung.dto.RevenueDataDto(
+			        CAST(FUNCTION('TO_CHAR', r.id.day, 'YYYY-MM') AS string),
+			        SUM(r.revenue),
+			        SUM(r.orderCount),
+			        COUNT(DISTINCT r.id.eventId)
+			    )
+			    FROM DailyRevenueRollup r
+			    WHERE r.id.day BETWEEN :startDate AND :endDate
+			    GROUP BY FUNCTION('TO_CHAR', r.id.day, 'YYYY-MM')
+			    ORDER BY FUNCTION('TO_CHAR', r.id.day, 'YYYY-MM') ASC
+			""")
+	List<RevenueDataDto> findRevenueDataByDateRange(@Param("startDate") LocalDate startDate,
+			@Param("endDate") LocalDate endDate);
+
+	// Lấy doanh thu theo loại sự kiện
+	@Query("""
+			    SELECT new me.trihung.dto.EventTypeRevenueDto(
+			        r.eventCategory,
+			        SUM(r.ticketCount),
+			        SUM(r.revenue)
+			    )
+			    FROM DailyRevenueRollup r
+			    WHERE r.id.day BETWEEN :startDate AND :endDate
+			    AND (:eventType IS NULL OR r.eventCategory = :eventType)
+			    GROUP BY r.eventCategory
+			""")
+	List<EventTypeRevenueDto> findEventTypeRevenue(@Param("startDate") LocalDate startDate,
+			@Param("endDate") LocalDate endDate, @Param("eventType") String eventType);
+
+	// Lấy các sự kiện hàng đầu theo doanh thu, chỉ join events để lấy tên và trạng thái
+	@Query(value = """
+			SELECT
+			    e.event_name as name,
+			    SUM(r.revenue) as revenue,
+			    SUM(r.ticket_count) as tickets,
+			    CASE
+			        WHEN (e.start_date + e.start_time) < NOW() THEN 'completed'
+			        WHEN (e.start_date + e.start_time) > NOW() THEN 'upcoming'
+			        ELSE 'active'
+			    END as status
+			FROM daily_revenue_rollups r
+			JOIN events e ON r.event_id = e.id
+			WHERE r.revenue_day BETWEEN :startDate AND :endDate
+			GROUP BY e.event_name, e.start_date, e.start_time
+			ORDER BY revenue DESC
+			""", nativeQuery = true)
+	List<TopEventDto> findTopEvents(@Param("startDate") LocalDate startDate,
+			@Param("endDate") LocalDate endDate, Pageable pageable);
+}
@@ -1,29 +1,151 @@
 package me.trihung.repository;
 
+import me.trihung.dto.EventSummaryDto;
 import me.trihung.entity.Event;
 import me.trihung.entity.User;
 import me.trihung.enums.EventStatus;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, UUID> {
+public interface EventRepository extends JpaRepository<Event, UUID>, JpaSpecificationExecutor<Event> {
+
+    // Các query danh sách join luôn venue/organizer trong cùng câu select (2 quan hệ này mặc định EAGER,
+    // nếu không join thì Hibernate select riêng cho từng event). Zones được nạp theo lô nhờ @BatchSize trên
+    // Event.zones, không fetch join collection để phân trang vẫn chạy trên DB
+    @Override
+    @EntityGraph(attributePaths = { "venue", "organizer" })
+    Page<Event> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = { "venue", "organizer" })
+    List<Event> findAll();
+
+    @EntityGraph(attributePaths = { "venue", "organizer" })
 	Page<Event> findByStatus(EventStatus status, Pageable pageable);
 
+    @EntityGraph(attributePaths = { "venue", "organizer" })
     Page<Event> findByEventNameContainingIgnoreCase(String search, Pageable pageable);
 
+    @EntityGraph(attributePaths = { "venue", "organizer" })
     Page<Event> findByStatusAndEventNameContainingIgnoreCase(EventStatus status, String search, Pageable pageable);
 
+    @EntityGraph(attributePaths = { "venue", "organizer" })
     Page<Event> findByOwner(User owner, Pageable pageable);
 
+    @EntityGraph(attributePaths = { "venue", "organizer" })
     Page<Event> findByOwnerAndStatus(User owner, EventStatus status, Pageable pageable);
 
+    @EntityGraph(attributePaths = { "venue", "organizer" })
     Page<Event> findByOwnerAndEventNameContainingIgnoreCase(User owner, String search, Pageable pageable);
 
+    @EntityGraph(attributePaths = { "venue", "organizer" })
     Page<Event> findByOwnerAndStatusAndEventNameContainingIgnoreCase(User owner, EventStatus status, String search, Pageable pageable);
 
+    // Keyset pagination: không COUNT, không OFFSET, Sort phải kết thúc bằng id để thứ tự là duy nhất
+    @EntityGraph(attributePaths = { "venue", "organizer" })
+    Window<Event> findByStatus(EventStatus status, ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = { "venue", "organizer" })
+    Window<Event> findByStatusAndEventNameContainingIgnoreCase(EventStatus status, String search, ScrollPosition position, Sort sort, Limit limit);
+
+    // Tính lại total_seats/total_capacity_value từ bảng zones cho các event đang bị lệch
+    // (dữ liệu có từ trước khi thêm 2 cột), trả về số event được cập nhật
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE events e
+            SET total_seats = t.seats, total_capacity_value = t.capacity_value
+            FROM (
+                SELECT ev.id AS event_id,
+                       COALESCE(SUM(COALESCE(z.max_tickets, 0)), 0) AS seats,
+                       COALESCE(SUM(COALESCE(z.price, 0) * COALESCE(z.max_tickets, 0)), 0) AS capacity_value
+                FROM events ev
+                LEFT JOIN zones z ON z.event_id = ev.id
+                GROUP BY ev.id
+            ) t
+            WHERE t.event_id = e.id
+              AND (e.total_seats IS DISTINCT FROM t.seats OR e.total_capacity_value IS DISTINCT FROM t.capacity_value)
+            """, nativeQuery = true)
+    int backfillTotals();
+
+    @EntityGraph(attributePaths = { "venue", "organizer" })
+    List<Event> findByIdIn(Collection<UUID> ids);
+
+    // Tìm theo chuỗi con không dấu, dùng index trigram idx_events_event_name_trgm (db/event-search.sql).
+    // Chỉ trả về id theo thứ tự liên quan, entity được nạp sau bằng findByIdIn.
+    // pattern là search đã escape \, % và _ (EventSearchServiceImpl), search gốc chỉ dùng để xếp hạng
+    @Query(value = """
+            SELECT e.id FROM events e
+            WHERE lower(f_unaccent(e.event_name)) LIKE '%' || lower(f_unaccent(:pattern)) || '%' ESCAPE '\\'
+              AND (CAST(:status AS text) IS NULL OR e.status = CAST(:status AS text))
+              AND (CAST(:ownerId AS text) IS NULL OR e.owner_id = CAST(:ownerId AS uuid))
+            ORDER BY word_similarity(lower(f_unaccent(:search)), lower(f_unaccent(e.event_name))) DESC,
+                     length(e.event_name), e.id
+            """,
+            countQuery = """
+            SELECT count(*) FROM events e
+            WHERE lower(f_unaccent(e.event_name)) LIKE '%' || lower(f_unaccent(:pattern)) || '%' ESCAPE '\\'
+              AND (CAST(:status AS text) IS NULL OR e.status = CAST(:status AS text))
+              AND (CAST(:ownerId AS text) IS NULL OR e.owner_id = CAST(:ownerId AS uuid))
+            """,
+            nativeQuery = true)
+    Page<UUID> searchIdsByName(@Param("search") String search, @Param("pattern") String pattern,
+            @Param("status") String status, @Param("ownerId") String ownerId, Pageable pageable);
+
+    // Danh sách rút gọn: chỉ các cột cần hiển thị và khoảng giá của zones, không nạp entity.
+    // pattern (đã escape, có thể null) chỉ dùng khi không có index trigram, bình thường tìm kiếm đi qua
+    // searchIdsByName rồi nạp bằng findSummariesByIdIn
+    @Query(value = """
+            SELECT new me.trihung.dto.EventSummaryDto(
+                e.id, e.eventName, e.eventImage, e.eventCategory, e.slug,
+                e.startDate, e.startTime, e.endDate,
+                v.province, v.address, e.totalSeats,
+                (SELECT MIN(z.price) FROM Zone z WHERE z.event = e),
+                (SELECT MAX(z.price) FROM Zone z WHERE z.event = e),
+                e.status
+            )
+            FROM Event e
+            LEFT JOIN e.venue v
+            WHERE e.status = :status
+              AND (:pattern IS NULL OR LOWER(e.eventName) LIKE LOWER(CONCAT('%', :pattern, '%')) ESCAPE '\\')
+            """,
+            countQuery = """
+            SELECT COUNT(e) FROM Event e
+            WHERE e.status = :status
+              AND (:pattern IS NULL OR LOWER(e.eventName) LIKE LOWER(CONCAT('%', :pattern, '%')) ESCAPE '\\')
+            """)
+    Page<EventSummaryDto> findSummaries(@Param("status") EventStatus status, @Param("pattern") String pattern, Pageable pageable);
+
+    @Query("""
+            SELECT new me.trihung.dto.EventSummaryDto(
+                e.id, e.eventName, e.eventImage, e.eventCategory, e.slug,
+                e.startDate, e.startTime, e.endDate,
+                v.province, v.address, e.totalSeats,
+                (SELECT MIN(z.price) FROM Zone z WHERE z.event = e),
+                (SELECT MAX(z.price) FROM Zone z WHERE z.event = e),
+                e.status
+            )
+            FROM Event e
+            LEFT JOIN e.venue v
+            WHERE e.id IN :ids
+            """)
+    List<EventSummaryDto> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
 }
@@ -1,24 +1,27 @@
 package me.trihung.repository;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import jakarta.transaction.Transactional;
 import me.trihung.entity.RefreshToken;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    void deleteByToken(String token);
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
 
     @Modifying
     @Transactional
-    @Query("DELETE FROM RefreshToken t WHERE t.expireTime < :now")
-    void deleteExpiredTokens(LocalDateTime now);
-
-    Optional<RefreshToken> findByToken(String refreshToken);
+    @Query("DELETE FROM RefreshToken t WHERE t.tokenHash = :tokenHash AND t.username = :username")
+    int deleteByTokenHashAndUsername(@Param("tokenHash") String tokenHash, @Param("username") String username);
 
-    Optional<RefreshToken> findByTokenAndUsername(String refreshToken, String username);
-}
\ No newline at end of file
+    //Xóa các bucket đã qua hẳn, chỉ quét index expire_bucket
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.expireBucket < :bucket")
+    int deleteExpiredBuckets(@Param("bucket") long bucket);
+}
@@ -0,0 +1,17 @@
+package me.trihung.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import me.trihung.dto.ZoneTicketCountDto;
+import me.trihung.entity.Reservation;
+
+public interface ReservationRepositoryCustom {
+
+    // Ghi nhiều giữ chỗ trong 1 lần gửi xuống DB (JDBC batch), không kiểm tra số vé còn lại
+    void insertAll(List<Reservation> reservations);
+
+    // Xóa các giữ chỗ hết hạn và trả về tổng số vé đã xóa theo zone, trong cùng 1 câu lệnh nên
+    // số vé trả về đúng bằng số vé thực sự bị xóa (kể cả khi có transaction khác đang xóa/sửa cùng lúc)
+    List<ZoneTicketCountDto> deleteExpired(LocalDateTime now);
+}
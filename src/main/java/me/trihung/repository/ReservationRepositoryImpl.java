@@ -0,0 +1,52 @@
+package me.trihung.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import me.trihung.dto.ZoneTicketCountDto;
+import me.trihung.entity.Reservation;
+
+public class ReservationRepositoryImpl implements ReservationRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO reservations (id, zone_id, owner_id, quantity, created_at, expires_at, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String DELETE_EXPIRED_SQL = """
+            WITH deleted AS (
+                DELETE FROM reservations WHERE expires_at < ? RETURNING zone_id, quantity
+            )
+            SELECT zone_id, SUM(quantity) AS quantity FROM deleted GROUP BY zone_id
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, reservations, reservations.size(), (ps, reservation) -> {
+            ps.setObject(1, reservation.getId());
+            ps.setObject(2, reservation.getZone().getId());
+            ps.setObject(3, reservation.getOwner().getId());
+            ps.setInt(4, reservation.getQuantity());
+            ps.setObject(5, reservation.getCreatedAt());
+            ps.setObject(6, reservation.getExpiresAt());
+            ps.setString(7, reservation.getStatus().name());
+        });
+    }
+
+    @Override
+    public List<ZoneTicketCountDto> deleteExpired(LocalDateTime now) {
+        return jdbcTemplate.query(DELETE_EXPIRED_SQL,
+                (rs, rowNum) -> new ZoneTicketCountDto(rs.getObject("zone_id", UUID.class), rs.getLong("quantity")),
+                now);
+    }
+}
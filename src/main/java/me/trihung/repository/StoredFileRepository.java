@@ -0,0 +1,52 @@
+package me.trihung.repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
+import me.trihung.entity.StoredFile;
+
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    // Thêm file mới hoặc tăng refCount nếu cùng nội dung đã được lưu, an toàn khi 2 request upload cùng lúc
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stored_files (file_name, sha256, size_bytes, ref_count, created_date, updated_date) "
+            + "VALUES (:fileName, :sha256, :sizeBytes, 1, now(), now()) "
+            + "ON CONFLICT (file_name) DO UPDATE SET ref_count = stored_files.ref_count + 1, updated_date = now()",
+            nativeQuery = true)
+    int addReference(@Param("fileName") String fileName, @Param("sha256") String sha256, @Param("sizeBytes") long sizeBytes);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile f SET f.refCount = f.refCount - 1 WHERE f.fileName = :fileName AND f.refCount > 0")
+    int releaseReference(@Param("fileName") String fileName);
+
+    // Chỉ xóa khi không còn tham chiếu, trả về 1 nếu đã xóa để bên gọi xóa file trên đĩa
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredFile f WHERE f.fileName = :fileName AND f.refCount = 0")
+    int deleteUnreferenced(@Param("fileName") String fileName);
+
+    // Dùng cho UploadGarbageCollector: chỉ xóa khi không có upload trùng nội dung nào (addReference) kể từ cutoff.
+    // Câu delete giữ khóa dòng tới hết transaction nên addReference chạy cùng lúc phải chờ, rồi tạo dòng mới
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredFile f WHERE f.fileName = :fileName AND (f.updatedDate IS NULL OR f.updatedDate < :cutoff)")
+    int deleteIfNotUpdatedSince(@Param("fileName") String fileName, @Param("cutoff") LocalDateTime cutoff);
+
+    // Mọi đường dẫn ảnh đang được event/organizer dùng, đọc theo cursor (cần chạy trong transaction)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT e.eventImage FROM Event e WHERE e.eventImage IS NOT NULL "
+            + "UNION SELECT e.eventBanner FROM Event e WHERE e.eventBanner IS NOT NULL "
+            + "UNION SELECT o.logo FROM Organizer o WHERE o.logo IS NOT NULL")
+    Stream<String> streamReferencedUrls();
+}
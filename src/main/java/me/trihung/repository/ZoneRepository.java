@@ -1,13 +1,80 @@
 package me.trihung.repository;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import me.trihung.dto.ZoneTicketCountDto;
 import me.trihung.entity.Zone;
 
 @Repository
 public interface ZoneRepository extends JpaRepository<Zone, UUID> {
 
+    // Số vé còn có thể giữ của mọi zone = maxTickets - soldTickets - heldTickets
+    @Query("""
+            SELECT new me.trihung.dto.ZoneTicketCountDto(
+                z.id, CAST(z.maxTickets - z.soldTickets - z.heldTickets AS Long))
+            FROM Zone z
+            """)
+    List<ZoneTicketCountDto> findAllAvailableTickets();
+
+    @Query("""
+            SELECT new me.trihung.dto.ZoneTicketCountDto(
+                z.id, CAST(z.maxTickets - z.soldTickets - z.heldTickets AS Long))
+            FROM Zone z
+            WHERE z.id = :zoneId
+            """)
+    Optional<ZoneTicketCountDto> findAvailableTickets(@Param("zoneId") UUID zoneId);
+
+    // Giữ vé bằng 1 câu UPDATE trên đúng 1 dòng zones, trả về 0 nếu không còn đủ vé
+    @Modifying
+    @Query(value = """
+            UPDATE zones SET held_tickets = held_tickets + :quantity
+            WHERE id = :zoneId AND max_tickets - sold_tickets - held_tickets >= :quantity
+            """, nativeQuery = true)
+    int tryHoldTickets(@Param("zoneId") UUID zoneId, @Param("quantity") int quantity);
+
+    // Cộng (hoặc trừ khi quantity âm) số vé đang giữ, không kiểm tra số vé còn lại
+    @Modifying
+    @Query("UPDATE Zone z SET z.heldTickets = z.heldTickets + :quantity WHERE z.id = :zoneId")
+    int addHeldTickets(@Param("zoneId") UUID zoneId, @Param("quantity") int quantity);
+
+    // Thanh toán thành công: chuyển vé từ đang giữ sang đã bán
+    @Modifying
+    @Query("""
+            UPDATE Zone z SET z.heldTickets = z.heldTickets - :quantity, z.soldTickets = z.soldTickets + :quantity
+            WHERE z.id = :zoneId
+            """)
+    int moveHeldToSold(@Param("zoneId") UUID zoneId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Zone z SET z.heldTickets = :heldTickets WHERE z.id = :zoneId")
+    int setHeldTickets(@Param("zoneId") UUID zoneId, @Param("heldTickets") int heldTickets);
+
+    // Zone kèm event (tên, giá cho ReservationDto) để dùng tiếp sau khi transaction đã đóng
+    @Query("SELECT z FROM Zone z JOIN FETCH z.event WHERE z.id = :zoneId")
+    Optional<Zone> findWithEventById(@Param("zoneId") UUID zoneId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT z FROM Zone z WHERE z.id = :zoneId")
+    Optional<Zone> findByIdForUpdate(@Param("zoneId") UUID zoneId);
+
+    // Các zone có heldTickets lệch với tổng vé của các giữ chỗ còn lưu trong bảng reservations
+    @Query("""
+            SELECT new me.trihung.dto.ZoneTicketCountDto(z.id, COALESCE(SUM(r.quantity), 0L))
+            FROM Zone z
+            LEFT JOIN Reservation r ON r.zone = z AND r.status <> me.trihung.enums.ReservationStatus.CANCELED
+            GROUP BY z.id, z.heldTickets
+            HAVING z.heldTickets <> COALESCE(SUM(r.quantity), 0L)
+            """)
+    List<ZoneTicketCountDto> findHeldTicketsDrift();
+
 }
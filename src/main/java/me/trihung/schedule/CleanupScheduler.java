@@ -1,33 +1,43 @@
 package me.trihung.schedule;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import lombok.extern.log4j.Log4j2;
-import me.trihung.repository.RefreshTokenRepository;
+import me.trihung.dto.ZoneTicketCountDto;
 import me.trihung.repository.ReservationRepository;
+import me.trihung.repository.ZoneRepository;
+import me.trihung.service.RefreshTokenStore;
+import me.trihung.service.TicketInventoryService;
 
 @Component
 @Log4j2
 public class CleanupScheduler {
 
     @Autowired
-    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenStore refreshTokenStore;
     
     @Autowired
     private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ZoneRepository zoneRepository;
+
+    @Autowired
+    private TicketInventoryService ticketInventoryService;
     
-    //Token clean
-    @Scheduled(cron = "0 0 0/23 * * ?")
+    //Token clean: xóa nguyên các bucket ngày đã qua, chạy ngay sau nửa đêm
+    @Scheduled(cron = "${app.refresh-token.cleanup-cron:0 5 0 * * ?}")
 //    @Scheduled(cron = "0 * * * * ?")
     public void scheduleRefreshTokenCleanup() {
         log.info("----------start clean up refresh tokens----------");
         LocalDateTime now = LocalDateTime.now();
-        refreshTokenRepository.deleteExpiredTokens(now);
-        log.info("----------end clean up refresh tokens------------");
+        int deleted = refreshTokenStore.purgeExpired(now);
+        log.info("----------end clean up refresh tokens, deleted {}------------", deleted);
 
     }
     
@@ -36,10 +46,18 @@ public class CleanupScheduler {
     @Transactional
     public void cleanupExpiredReservations() {
         LocalDateTime now = LocalDateTime.now();
-        int deleted = reservationRepository.deleteExpiredReservations(now);
-        if (deleted > 0) {
-        	System.out.println("deleted");
-            log.info("Deleted {} expired reservations.", deleted);
+        // Xóa và lấy số vé theo zone trong cùng 1 câu lệnh, để trừ heldTickets và trả lại cho kho vé
+        // trong bộ nhớ đúng số vé đã xóa (giữ chỗ vừa được checkout/hủy giữa chừng không bị trừ 2 lần)
+        List<ZoneTicketCountDto> expired = reservationRepository.deleteExpired(now);
+        long tickets = 0;
+        for (ZoneTicketCountDto count : expired) {
+            int quantity = count.getQuantity().intValue();
+            zoneRepository.addHeldTickets(count.getZoneId(), -quantity);
+            ticketInventoryService.releaseAfterCommit(count.getZoneId(), quantity);
+            tickets += quantity;
+        }
+        if (tickets > 0) {
+            log.info("Deleted expired reservations holding {} tickets in {} zones.", tickets, expired.size());
         }
     }
 
@@ -0,0 +1,26 @@
+package me.trihung.schedule;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.log4j.Log4j2;
+import me.trihung.repository.EventRepository;
+
+@Component
+@Log4j2
+public class EventTotalsBackfill {
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    //Điền total_seats/total_capacity_value cho các event tạo trước khi có 2 cột này, chạy 1 lần khi khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillEventTotals() {
+        int updated = eventRepository.backfillTotals();
+        if (updated > 0) {
+            log.info("Backfilled seat totals for {} events", updated);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package me.trihung.schedule;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import me.trihung.dto.ZoneTicketCountDto;
+import me.trihung.repository.ReservationRepository;
+import me.trihung.repository.ZoneRepository;
+import me.trihung.service.TicketInventoryService;
+
+@Component
+@Log4j2
+public class InventoryReconciliationScheduler {
+
+    @Autowired
+    private ZoneRepository zoneRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private TicketInventoryService ticketInventoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    //Đối soát zones.held_tickets với bảng reservations, sửa các zone bị lệch
+    @Scheduled(cron = "${app.inventory.reconcile-cron:0 */10 * * * ?}")
+    public void reconcileHeldTickets() {
+        List<ZoneTicketCountDto> drifted = zoneRepository.findHeldTicketsDrift();
+        if (drifted.isEmpty()) {
+            return;
+        }
+        log.warn("Found {} zones with held_tickets drift, reconciling", drifted.size());
+        for (ZoneTicketCountDto candidate : drifted) {
+            UUID zoneId = candidate.getZoneId();
+            transactionTemplate.executeWithoutResult(status -> {
+                // Khóa dòng zone để chờ các giữ chỗ đang ghi dở commit xong rồi mới tính lại
+                zoneRepository.findByIdForUpdate(zoneId).ifPresent(zone -> {
+                    int actual = (int) reservationRepository.sumLiveQuantity(zoneId);
+                    if (zone.getHeldTickets() == null || zone.getHeldTickets() != actual) {
+                        log.warn("Zone {} held_tickets {} -> {}", zoneId, zone.getHeldTickets(), actual);
+                        zoneRepository.setHeldTickets(zoneId, actual);
+                    }
+                });
+            });
+        }
+        ticketInventoryService.evict(drifted.stream().map(ZoneTicketCountDto::getZoneId).toList());
+    }
+}
@@ -0,0 +1,47 @@
+package me.trihung.schedule;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.log4j.Log4j2;
+import me.trihung.repository.DailyRevenueRollupRepository;
+import me.trihung.service.RevenueRollupService;
+
+@Component
+@Log4j2
+public class RevenueRollupJob {
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private DailyRevenueRollupRepository rollupRepository;
+
+    @Value("${app.analytics.rollup.reconcile-days:2}")
+    private int reconcileDays;
+
+    //Bảng rollup còn trống (lần đầu triển khai) thì dựng từ toàn bộ orders, chạy 1 lần khi khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRollups() {
+        if (rollupRepository.hasRollups()) {
+            return;
+        }
+        int rows = revenueRollupService.rebuildAll();
+        if (rows > 0) {
+            log.info("Backfilled {} revenue rollup rows", rows);
+        }
+    }
+
+    //Đối chiếu lại vài ngày gần nhất với bảng orders, sửa các lệch (vd order bị xóa tay trong DB)
+    @Scheduled(cron = "${app.analytics.rollup.reconcile-cron:0 15 1 * * ?}")
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        revenueRollupService.rebuild(today.minusDays(reconcileDays), today);
+    }
+}
@@ -0,0 +1,203 @@
+package me.trihung.schedule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import me.trihung.entity.StoredFile;
+import me.trihung.helper.StaticFileWriter;
+import me.trihung.repository.StoredFileRepository;
+import me.trihung.service.BlobStorage;
+import me.trihung.service.BlobStorage.BlobInfo;
+import me.trihung.service.ImageVariantService;
+
+/**
+ * Dọn các file upload (trong BlobStorage) không còn được Event.eventImage, Event.eventBanner hay Organizer.logo
+ * tham chiếu. File chỉ bị xóa khi đã cũ hơn grace period (tránh xóa ảnh của request đang lưu event)
+ * và không vừa được upload lại (stored_files.updated_date). Xóa theo từng batch, nghỉ giữa các batch
+ * để không chiếm hết I/O của đĩa.
+ */
+@Component
+@Log4j2
+public class UploadGarbageCollector {
+
+    private static final String URL_PREFIX = "/uploads/";
+    // Bản thu nhỏ "<tên gốc>.<size>.jpg|png" do ImageVariantService tạo
+    private static final Pattern VARIANT_NAME = Pattern.compile("^(.+)\\.(thumb|card|full)\\.(jpg|png)$");
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private BlobStorage blobStorage;
+
+    @Autowired
+    private StaticFileWriter staticFileWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.uploads.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.uploads.gc.grace-period:24h}")
+    private Duration gracePeriod;
+
+    @Value("${app.uploads.gc.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.uploads.gc.batch-pause:500ms}")
+    private Duration batchPause;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${app.uploads.gc.cron:0 30 3 * * ?}")
+    public void collect() {
+        if (!enabled) {
+            return;
+        }
+        log.info("----------start upload garbage collection----------");
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        Set<String> referenced = referencedFileNames();
+
+        // Chỉ giữ lại blob đủ cũ, blob mới hơn grace period có thể thuộc request đang lưu event
+        List<BlobInfo> candidates = new ArrayList<>();
+        Set<String> originalBaseNames = new HashSet<>();
+        List<BlobInfo> variants = new ArrayList<>();
+        try (Stream<BlobInfo> blobs = blobStorage.list()) {
+            blobs.forEach(blob -> {
+                String name = blob.key();
+                // File tạm của upload/bản thu nhỏ đang ghi
+                if (name.startsWith(".")) {
+                    return;
+                }
+                if (VARIANT_NAME.matcher(name).matches()) {
+                    variants.add(blob);
+                    return;
+                }
+                originalBaseNames.add(baseName(name));
+                if (!referenced.contains(name) && blob.lastModified().isBefore(cutoff)) {
+                    candidates.add(blob);
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.error("Cannot list stored uploads", ex);
+            return;
+        }
+        // Bản thu nhỏ mà file gốc đã mất cũng là rác
+        for (BlobInfo variant : variants) {
+            Matcher matcher = VARIANT_NAME.matcher(variant.key());
+            if (matcher.matches() && !originalBaseNames.contains(matcher.group(1)) && variant.lastModified().isBefore(cutoff)) {
+                candidates.add(variant);
+            }
+        }
+
+        long reclaimedBytes = 0;
+        int deletedFiles = 0;
+        LocalDateTime cutoffTime = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            if (from > 0) {
+                pause();
+            }
+            List<BlobInfo> batch = candidates.subList(from, Math.min(from + batchSize, candidates.size()));
+            Set<String> storedNames = storedFileRepository
+                    .findAllById(batch.stream().map(BlobInfo::key).toList())
+                    .stream()
+                    .map(StoredFile::getFileName)
+                    .collect(Collectors.toSet());
+            for (BlobInfo blob : batch) {
+                String name = blob.key();
+                try {
+                    if (!storedNames.contains(name)) {
+                        blobStorage.delete(name);
+                    } else if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> deleteStoredFile(name, cutoffTime)))) {
+                        // Cùng nội dung vừa được upload lại (dedup) sau khi đã lấy tập tham chiếu
+                        continue;
+                    }
+                } catch (IOException | UncheckedIOException ex) {
+                    log.warn("Cannot delete orphaned upload {}", name, ex);
+                    continue;
+                }
+                staticFileWriter.evict(name);
+                reclaimedBytes += blob.size();
+                deletedFiles++;
+                if (!VARIANT_NAME.matcher(name).matches()) {
+                    imageVariantService.deleteVariants(name);
+                }
+            }
+        }
+        log.info("----------end upload garbage collection, deleted {} files, reclaimed {} bytes------------",
+                deletedFiles, reclaimedBytes);
+    }
+
+    // Xóa dòng stored_files (nếu không được upload lại từ cutoff) rồi xóa blob trong cùng transaction:
+    // FileStorageServiceImpl.store gọi addReference trước khi kiểm tra blob, nên nếu chạy cùng lúc thì
+    // nó chờ transaction này commit rồi mới thấy blob đã mất và ghi lại. Xóa blob lỗi thì rollback giữ lại dòng
+    private boolean deleteStoredFile(String name, LocalDateTime cutoffTime) {
+        if (storedFileRepository.deleteIfNotUpdatedSince(name, cutoffTime) == 0) {
+            return false;
+        }
+        try {
+            blobStorage.delete(name);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return true;
+    }
+
+    // Tên file đang được dùng, đọc theo cursor thay vì nạp entity
+    private Set<String> referencedFileNames() {
+        return readOnlyTransaction.execute(status -> {
+            try (Stream<String> urls = storedFileRepository.streamReferencedUrls()) {
+                return urls.filter(url -> url.startsWith(URL_PREFIX))
+                        .map(url -> url.substring(URL_PREFIX.length()))
+                        .collect(Collectors.toCollection(HashSet::new));
+            }
+        });
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(batchPause.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String baseName(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
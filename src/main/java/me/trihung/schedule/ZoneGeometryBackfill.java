@@ -0,0 +1,67 @@
+package me.trihung.schedule;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+
+@Component
+@Log4j2
+public class ZoneGeometryBackfill {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    //Chép tọa độ từ cột @Lob cũ "coordinates" sang cột jsonb "coordinates_json" rồi bỏ cột cũ, chạy 1 lần khi khởi động.
+    //Chép, xóa large object và drop cột nằm trong cùng 1 transaction: lỗi ở bước nào thì cột cũ vẫn còn nguyên
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillZoneGeometry() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Nhiều instance khởi động cùng lúc thì chỉ 1 instance chép, các instance sau thấy cột cũ đã bị drop
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext('zones.coordinates'))) l",
+                    Long.class);
+            String type = jdbcTemplate.query("""
+                    SELECT data_type FROM information_schema.columns
+                    WHERE table_schema = current_schema() AND table_name = 'zones' AND column_name = 'coordinates'
+                    """, rs -> rs.next() ? rs.getString(1) : null);
+            if (type == null) {
+                return;
+            }
+            // Hibernate lưu @Lob String trên Postgres thành large object (oid), phải đọc nội dung bằng lo_get
+            boolean largeObject = "oid".equals(type);
+            String source = largeObject
+                    ? "convert_from(lo_get(CAST(coordinates AS oid)), 'UTF8')"
+                    : "coordinates";
+            int updated = jdbcTemplate.update("UPDATE zones SET coordinates_json = CAST(" + source + " AS jsonb)"
+                    + " WHERE coordinates_json IS NULL AND coordinates IS NOT NULL");
+            // Drop cột không xóa large object mà nó trỏ tới, phải lo_unlink trước nếu không sẽ thành rác trong pg_largeobject
+            int unlinked = 0;
+            if (largeObject) {
+                unlinked = jdbcTemplate.queryForList("""
+                        SELECT lo_unlink(CAST(coordinates AS oid)) FROM zones
+                        WHERE coordinates IS NOT NULL
+                          AND EXISTS (SELECT 1 FROM pg_largeobject_metadata m WHERE m.oid = CAST(coordinates AS oid))
+                        """, Integer.class).size();
+            }
+            jdbcTemplate.execute("ALTER TABLE zones DROP COLUMN coordinates");
+            log.info("Copied geometry of {} zones to coordinates_json, unlinked {} large objects, dropped zones.coordinates",
+                    updated, unlinked);
+        });
+    }
+}
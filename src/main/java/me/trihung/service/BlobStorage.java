@@ -0,0 +1,54 @@
+package me.trihung.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Nơi lưu nội dung file upload (ảnh gốc và bản thu nhỏ), key là tên file trong URL /uploads/&lt;key&gt;.
+ * Chọn implementation bằng app.storage.type: local (mặc định, thư mục uploads/ trên máy) hoặc
+ * s3 (AWS S3 hoặc server tương thích S3 như MinIO), để nhiều node dùng chung 1 kho ảnh.
+ */
+public interface BlobStorage {
+
+    /**
+     * Ghi nội dung file cục bộ dưới tên key. Người đọc chỉ thấy blob khi đã ghi xong.
+     * File nguồn có thể bị di chuyển (không còn tồn tại) sau khi gọi.
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    // File tạm để ghi nội dung trước khi put. Backend lưu cục bộ tạo nó cạnh các blob để put chỉ cần đổi tên
+    default Path createStagingFile() throws IOException {
+        return Files.createTempFile("upload-", ".tmp");
+    }
+
+    boolean exists(String key);
+
+    Optional<BlobInfo> stat(String key);
+
+    // Đọc từ byte start tới end (tính cả end)
+    InputStream open(String key, long start, long end) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // Liệt kê mọi blob đã ghi xong, Stream phải được đóng sau khi dùng
+    Stream<BlobInfo> list();
+
+    // File trên đĩa nếu backend lưu cục bộ, để gửi bằng sendfile/transferTo
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    // URL đọc trực tiếp từ backend (presigned) nếu backend được cấu hình cho client tải thẳng
+    default Optional<URI> directReadUrl(String key) {
+        return Optional.empty();
+    }
+
+    record BlobInfo(String key, long size, Instant lastModified, String contentType) {
+    }
+}
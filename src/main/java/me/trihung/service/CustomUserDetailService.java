@@ -4,13 +4,14 @@ import java.text.MessageFormat;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import lombok.extern.slf4j.Slf4j;
+import me.trihung.auth.AuthenticatedUser;
+import me.trihung.entity.Role;
 import me.trihung.entity.User;
 import me.trihung.repository.UserRepository;
 
@@ -31,14 +32,16 @@ public class CustomUserDetailService implements UserDetailsService {
                         MessageFormat.format("User với username {0} không tìm thấy", username)
                 ));
 
-        List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName())) 
+        List<String> roles = user.getRoles().stream()
+                .map(Role::getName)
                 .toList();
 
-        return new org.springframework.security.core.userdetails.User(
+        // Mang theo id và role để TokenGenerator ghi vào claim của access token
+        return new AuthenticatedUser(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
-                authorities
+                roles
         );
     }
 
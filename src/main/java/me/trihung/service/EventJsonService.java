@@ -0,0 +1,16 @@
+package me.trihung.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface EventJsonService {
+
+	// Chi tiết event đã serialize sẵn thành JSON (và gzip), cache lại nếu event đã PUBLISHED
+	SerializedEvent getEventJson(UUID id);
+
+	// ETag của bản đang nằm trong cache, không truy vấn DB
+	Optional<String> findCachedEtag(UUID id);
+
+	record SerializedEvent(String etag, byte[] json, byte[] gzip, boolean published) {
+	}
+}
@@ -0,0 +1,27 @@
+package me.trihung.service;
+
+import java.util.UUID;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import me.trihung.dto.EventSummaryDto;
+import me.trihung.entity.Event;
+import me.trihung.enums.EventStatus;
+
+public interface EventSearchService {
+
+	// Tìm event theo chuỗi con của tên, không phân biệt dấu, kết quả xếp theo độ liên quan.
+	// status/ownerId = null nghĩa là không lọc theo điều kiện đó
+	Page<Event> search(String search, EventStatus status, UUID ownerId, Pageable pageable);
+
+	// Như search nhưng trả về danh sách rút gọn, khớp và xếp hạng giống hệt để 2 kiểu danh sách cho cùng kết quả
+	Page<EventSummaryDto> searchSummaries(String search, EventStatus status, Pageable pageable);
+
+	// Phân trang bằng cursor: khớp giống search (không dấu) nhưng giữ thứ tự sort của client thay vì độ liên quan,
+	// vì keyset cần thứ tự theo cột. sort phải kết thúc bằng khóa duy nhất (id)
+	Window<Event> scroll(String search, EventStatus status, ScrollPosition position, Sort sort, int limit);
+}
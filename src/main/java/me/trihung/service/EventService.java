@@ -5,6 +5,8 @@ import java.util.UUID;
 
 import me.trihung.dto.EventDto;
 import me.trihung.dto.EventPageResponse;
+import me.trihung.dto.EventSliceResponse;
+import me.trihung.dto.EventSummaryPageResponse;
 import me.trihung.dto.request.EventRequest;
 
 public interface EventService {
@@ -12,6 +14,10 @@ public interface EventService {
     EventDto saveDraft(EventRequest requestDto);
     List<EventDto> getAllEvents();
     EventDto getEventById(UUID id);
+    // Như getEventById nhưng luôn đọc DB, dùng khi dựng cache khác từ kết quả (EventJsonService)
+    EventDto loadEventById(UUID id);
     void deleteEvent(UUID id);
-    EventPageResponse getEventsPaged(int page, int size, String status, String search, String sortBy, String sortDirection, boolean hasOwner);
+    EventPageResponse getEventsPaged(int page, int size, String status, String search, String sortBy, String sortDirection, boolean hasOwner, boolean includeGeometry);
+    EventSummaryPageResponse getPublishedEventSummaries(int page, int size, String search, String sortBy, String sortDirection);
+    EventSliceResponse scrollPublishedEvents(String cursor, int size, String search, String sortBy, String sortDirection, boolean includeGeometry);
 }
\ No newline at end of file
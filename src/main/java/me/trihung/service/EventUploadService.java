@@ -0,0 +1,16 @@
+package me.trihung.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import me.trihung.dto.request.EventRequest;
+
+public interface EventUploadService {
+
+    /**
+     * Đọc request multipart của POST /events/stream theo kiểu stream: part eventData (JSON) và các part
+     * ảnh eventImage, eventBanner, organizerLogo. Ảnh được kiểm tra magic bytes và giới hạn kích thước
+     * ngay trong lúc đọc rồi ghi thẳng vào thư mục lưu trữ.
+     *
+     * @return EventRequest với eventImageUrl, eventBannerUrl, organizer.logoUrl của các ảnh đã lưu
+     */
+    EventRequest readEventRequest(HttpServletRequest request);
+}
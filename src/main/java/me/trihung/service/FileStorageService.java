@@ -1,8 +1,30 @@
 package me.trihung.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.web.multipart.MultipartFile;
 
 public interface FileStorageService {
   
     String storeFile(MultipartFile file);
-}
\ No newline at end of file
+
+    // Lưu file trên executor riêng (virtual thread nếu spring.threads.virtual.enabled), để lưu nhiều file song song
+    CompletableFuture<String> storeFileAsync(MultipartFile file);
+
+    /**
+     * Lưu ảnh đọc trực tiếp từ stream upload. Loại ảnh được xác định bằng magic bytes ở đầu stream,
+     * không phải JPG/PNG/WEBP thì từ chối trước khi ghi bất kỳ byte nào xuống đĩa.
+     *
+     * @return Đường dẫn /uploads/... của file đã lưu
+     * @throws IOException lỗi đọc stream, kể cả khi part vượt giới hạn kích thước trong lúc đọc
+     */
+    String storeImage(InputStream input) throws IOException;
+
+    // Bỏ 1 tham chiếu tới file đã lưu (url dạng /uploads/<tên file>), file không còn tham chiếu sẽ được dọn sau
+    void releaseFile(String url);
+
+    // Hoàn tác 1 lần lưu: bỏ tham chiếu và xóa luôn file (kèm bản thu nhỏ) nếu không còn ai dùng
+    void discardFile(String url);
+}
@@ -0,0 +1,23 @@
+package me.trihung.service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import me.trihung.entity.Reservation;
+
+public interface HoldAdmissionQueue {
+
+	boolean isEnabled();
+
+	// Xếp giữ chỗ vào hàng đợi của zone
+	Admission submit(Reservation reservation);
+
+	interface Admission {
+
+		// Chờ kết quả, true nếu được cấp vé và đã ghi DB. Hết thời gian mà worker chưa nhận yêu cầu
+		// thì yêu cầu được rút khỏi hàng đợi và ném TimeoutException; worker đã nhận thì chờ tới khi
+		// nhóm commit xong và trả về kết quả thật
+		boolean await(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException;
+	}
+}
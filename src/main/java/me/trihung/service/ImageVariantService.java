@@ -0,0 +1,17 @@
+package me.trihung.service;
+
+import java.util.Optional;
+
+import me.trihung.enums.ImageSize;
+
+public interface ImageVariantService {
+
+    // Xếp việc tạo các bản thumb/card/full của ảnh vừa lưu (key trong BlobStorage) vào hàng đợi, trả về ngay
+    void generateVariantsAsync(String key);
+
+    // Key của bản thu nhỏ nếu đã được tạo xong
+    Optional<String> findVariant(String key, ImageSize size);
+
+    // Xóa mọi bản thu nhỏ của file gốc (khi file gốc bị xóa)
+    void deleteVariants(String key);
+}
@@ -0,0 +1,35 @@
+package me.trihung.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import me.trihung.entity.RefreshToken;
+
+/**
+ * Nơi lưu refresh token đã cấp. Token chỉ được lưu dưới dạng SHA-256 và được gom theo
+ * bucket ngày hết hạn để việc dọn dẹp là xóa nguyên bucket.
+ * Chọn implementation bằng app.refresh-token.store: jpa (mặc định) hoặc memory.
+ */
+public interface RefreshTokenStore {
+
+	void save(String token, String username, LocalDateTime expireTime);
+
+	Optional<RefreshToken> find(String token);
+
+	// Trả về false nếu token không tồn tại hoặc không thuộc username
+	boolean delete(String token, String username);
+
+	// Xóa các bucket đã hết hạn hoàn toàn trước thời điểm now, trả về số token bị xóa
+	int purgeExpired(LocalDateTime now);
+
+	static String hash(String token) {
+		return DigestUtils.sha256Hex(token);
+	}
+
+	// Bucket = ngày hết hạn, token hết hạn trong ngày d bị xóa khi dọn ở ngày d + 1
+	static long bucket(LocalDateTime expireTime) {
+		return expireTime.toLocalDate().toEpochDay();
+	}
+}
@@ -0,0 +1,17 @@
+package me.trihung.service;
+
+import java.time.LocalDate;
+
+import me.trihung.entity.Order;
+
+public interface RevenueRollupService {
+
+	// Cộng order vừa tạo vào rollup ngày, phải gọi trong transaction tạo order
+	void recordOrder(Order order);
+
+	// Dựng lại rollup của các ngày [from, to] từ bảng orders, mỗi tháng 1 transaction. Trả về số dòng rollup
+	int rebuild(LocalDate from, LocalDate to);
+
+	// Dựng lại toàn bộ từ order đầu tiên tới hôm nay
+	int rebuildAll();
+}
@@ -0,0 +1,29 @@
+package me.trihung.service;
+
+import java.util.Collection;
+import java.util.UUID;
+
+import me.trihung.entity.Reservation;
+
+public interface TicketInventoryService {
+
+	boolean isEnabled();
+
+	// Trừ quantity vé khỏi zone nếu còn đủ, trả về false nếu không đủ vé
+	boolean tryAcquire(UUID zoneId, int quantity);
+
+	// Trả lại vé cho zone (hủy, hết hạn giữ chỗ hoặc ghi DB thất bại)
+	void release(UUID zoneId, int quantity);
+
+	// Như release nhưng chỉ trả vé khi transaction hiện tại commit (vé được trả do xóa dòng trong DB)
+	void releaseAfterCommit(UUID zoneId, int quantity);
+
+	// Đưa giữ chỗ đã được cấp vé vào hàng đợi ghi DB theo batch
+	void persistAsync(Reservation reservation);
+
+	// Nếu giữ chỗ còn nằm trong hàng đợi thì ghi ngay xuống DB trước khi đọc
+	void flushIfPending(UUID reservationId);
+
+	// Bỏ counter của các zone đã bị thay đổi/xóa, lần dùng tiếp theo sẽ nạp lại từ DB
+	void evict(Collection<UUID> zoneIds);
+}
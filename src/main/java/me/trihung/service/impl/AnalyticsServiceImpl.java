@@ -4,16 +4,14 @@ import lombok.RequiredArgsConstructor;
 import me.trihung.dto.EventTypeRevenueDto;
 import me.trihung.dto.RevenueDataDto;
 import me.trihung.dto.TopEventDto;
-import me.trihung.repository.OrderRepository;
+import me.trihung.repository.DailyRevenueRollupRepository;
 import me.trihung.service.AnalyticsService;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.YearMonth;
+import java.time.LocalDate;
 import java.util.List;
 
 @Service
@@ -21,34 +19,35 @@ import java.util.List;
 @Transactional(readOnly = true) 
 public class AnalyticsServiceImpl implements AnalyticsService {
 
-    private final OrderRepository orderRepository;
+    // Đọc từ bảng rollup theo ngày, chi phí phụ thuộc số event x số ngày thay vì số order
+    private final DailyRevenueRollupRepository rollupRepository;
     private static final int TOP_EVENTS_LIMIT = 5;
 
     @Override
     public List<RevenueDataDto> getRevenueData(int year) {
-        LocalDateTime startDate = LocalDateTime.of(year, 1, 1, 0, 0, 0);
-        LocalDateTime endDate = startDate.plusYears(1).minusNanos(1);
-        return orderRepository.findRevenueDataByDateRange(startDate, endDate);
+        LocalDate startDate = LocalDate.of(year, 1, 1);
+        LocalDate endDate = startDate.plusYears(1).minusDays(1);
+        return rollupRepository.findRevenueDataByDateRange(startDate, endDate);
     }
 
     @Override
     public List<EventTypeRevenueDto> getEventTypeRevenue(int year, String eventType) {
-        LocalDateTime startDate = LocalDateTime.of(year, 1, 1, 0, 0, 0);
-        LocalDateTime endDate = startDate.plusYears(1).minusNanos(1);
+        LocalDate startDate = LocalDate.of(year, 1, 1);
+        LocalDate endDate = startDate.plusYears(1).minusDays(1);
 
         // Nếu eventType là 'all', truyền null vào repository để bỏ qua điều kiện lọc
         String filterEventType = "all".equalsIgnoreCase(eventType) ? null : eventType;
         
-        return orderRepository.findEventTypeRevenue(startDate, endDate, filterEventType);
+        return rollupRepository.findEventTypeRevenue(startDate, endDate, filterEventType);
     }
 
     @Override
     public List<TopEventDto> getTopEvents(int year) {
-        LocalDateTime startDate = LocalDateTime.of(year, 1, 1, 0, 0, 0);
-        LocalDateTime endDate = startDate.plusYears(1).minusNanos(1);
+        LocalDate startDate = LocalDate.of(year, 1, 1);
+        LocalDate endDate = startDate.plusYears(1).minusDays(1);
 
         Pageable topEventsPageable = PageRequest.of(0, TOP_EVENTS_LIMIT);
 
-        return orderRepository.findTopEvents(startDate, endDate, topEventsPageable);
+        return rollupRepository.findTopEvents(startDate, endDate, topEventsPageable);
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package me.trihung.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import me.trihung.config.CacheConfig;
+import me.trihung.dto.EventDto;
+import me.trihung.enums.EventStatus;
+import me.trihung.service.EventJsonService;
+import me.trihung.service.EventService;
+
+@Service
+public class EventJsonServiceImpl implements EventJsonService {
+
+	@Autowired
+	private EventService eventService;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private CacheManager cacheManager;
+
+	// JSON nhỏ hơn ngưỡng này thì nén không đáng
+	@Value("${app.cache.published-event-json.gzip-min-bytes:1024}")
+	private int gzipMinBytes;
+
+	@Override
+	@Cacheable(cacheNames = CacheConfig.PUBLISHED_EVENT_JSON, key = "#id", unless = "!#result.published()")
+	public SerializedEvent getEventJson(UUID id) {
+		// Đọc thẳng DB, không qua cache publishedEvents: JSON dựng từ DTO đã cache sẽ cũ thêm tới 1 ttl nữa
+		EventDto event = eventService.loadEventById(id);
+		byte[] json;
+		try {
+			json = objectMapper.writeValueAsBytes(event);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot serialize event " + id, e);
+		}
+		byte[] gzip = json.length >= gzipMinBytes ? gzip(json) : null;
+		return new SerializedEvent(etag(event, json), json, gzip, event.getEventStatus() == EventStatus.PUBLISHED);
+	}
+
+	@Override
+	public Optional<String> findCachedEtag(UUID id) {
+		Cache cache = cacheManager.getCache(CacheConfig.PUBLISHED_EVENT_JSON);
+		SerializedEvent cached = cache != null ? cache.get(id, SerializedEvent.class) : null;
+		return Optional.ofNullable(cached).map(SerializedEvent::etag);
+	}
+
+	// ETag mạnh: thời điểm sửa event + hash nội dung (soldTickets của zone đổi mà updatedDate không đổi)
+	private String etag(EventDto event, byte[] json) {
+		long version = event.getUpdatedDate() != null ? event.getUpdatedDate().toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+		return "\"" + version + "-" + DigestUtils.sha256Hex(json).substring(0, 16) + "\"";
+	}
+
+	private static byte[] gzip(byte[] json) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(json);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+}
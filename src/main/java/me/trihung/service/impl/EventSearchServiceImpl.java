@@ -0,0 +1,160 @@
+package me.trihung.service.impl;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Service;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import lombok.extern.slf4j.Slf4j;
+import me.trihung.dto.EventSummaryDto;
+import me.trihung.entity.Event;
+import me.trihung.entity.User;
+import me.trihung.enums.EventStatus;
+import me.trihung.repository.EventRepository;
+import me.trihung.repository.UserRepository;
+import me.trihung.service.EventSearchService;
+
+/**
+ * Tìm kiếm tên event trên Postgres bằng pg_trgm + unaccent: điều kiện LIKE '%x%' trên
+ * lower(f_unaccent(event_name)) dùng được index GIN trigram nên không phải quét cả bảng,
+ * "am nhac" cũng khớp "Âm nhạc". Nếu không tạo được extension (thiếu quyền...) thì
+ * quay về các query ContainingIgnoreCase cũ.
+ */
+@Service
+@Slf4j
+public class EventSearchServiceImpl implements EventSearchService {
+
+	@Autowired
+	private EventRepository eventRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private DataSource dataSource;
+
+	@Value("${app.search.trigram.enabled:true}")
+	private boolean trigramEnabled;
+
+	private volatile boolean trigramReady;
+
+	// Tạo extension, hàm f_unaccent và index sau khi Hibernate đã tạo bảng events
+	@EventListener(ApplicationReadyEvent.class)
+	public void initSearchIndex() {
+		if (!trigramEnabled) {
+			return;
+		}
+		try {
+			new ResourceDatabasePopulator(new ClassPathResource("db/event-search.sql")).execute(dataSource);
+			trigramReady = true;
+			log.info("Event name trigram search index is ready");
+		} catch (RuntimeException ex) {
+			log.warn("Cannot set up trigram search, falling back to LIKE search: {}", ex.getMessage());
+		}
+	}
+
+	@Override
+	public Page<Event> search(String search, EventStatus status, UUID ownerId, Pageable pageable) {
+		if (!trigramReady) {
+			return likeSearch(search, status, ownerId, pageable);
+		}
+		Page<UUID> ids = searchIds(search, status, ownerId, pageable);
+		List<Event> events = ids.isEmpty() ? List.of() : eventRepository.findByIdIn(ids.getContent());
+		return inRankOrder(ids, events, Event::getId);
+	}
+
+	@Override
+	public Page<EventSummaryDto> searchSummaries(String search, EventStatus status, Pageable pageable) {
+		if (!trigramReady) {
+			return eventRepository.findSummaries(status, escapeLike(search), pageable);
+		}
+		Page<UUID> ids = searchIds(search, status, null, pageable);
+		List<EventSummaryDto> summaries = ids.isEmpty() ? List.of() : eventRepository.findSummariesByIdIn(ids.getContent());
+		return inRankOrder(ids, summaries, EventSummaryDto::getId);
+	}
+
+	@Override
+	public Window<Event> scroll(String search, EventStatus status, ScrollPosition position, Sort sort, int limit) {
+		if (!trigramReady) {
+			return eventRepository.findByStatusAndEventNameContainingIgnoreCase(status, search, position, sort,
+					Limit.of(limit));
+		}
+		Specification<Event> matches = nameMatches(search)
+				.and((root, query, cb) -> cb.equal(root.get("status"), status));
+		return eventRepository.findBy(matches, query -> query.sortBy(sort).limit(limit).scroll(position));
+	}
+
+	// Cùng điều kiện khớp với searchIdsByName nên dùng được index trigram.
+	// venue/organizer nạp cùng câu select như các query danh sách khác
+	private static Specification<Event> nameMatches(String search) {
+		return (root, query, cb) -> {
+			if (query.getResultType() != Long.class) {
+				root.fetch("venue", JoinType.LEFT);
+				root.fetch("organizer", JoinType.LEFT);
+			}
+			Expression<String> name = cb.lower(cb.function("f_unaccent", String.class, root.get("eventName")));
+			// cb.literal trong tham số hàm bị chèn thẳng vào SQL, value() bind từ khóa thành tham số
+			Expression<String> keyword = ((HibernateCriteriaBuilder) cb).value("%" + escapeLike(search) + "%");
+			Expression<String> pattern = cb.lower(cb.function("f_unaccent", String.class, keyword));
+			return cb.like(name, pattern, '\\');
+		};
+	}
+
+	private Page<UUID> searchIds(String search, EventStatus status, UUID ownerId, Pageable pageable) {
+		// Thứ tự kết quả là độ liên quan, sort của client không áp dụng khi tìm kiếm
+		Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+		return eventRepository.searchIdsByName(search, escapeLike(search), status != null ? status.name() : null,
+				ownerId != null ? ownerId.toString() : null, unsorted);
+	}
+
+	// Các dòng được nạp bằng IN không giữ thứ tự, sắp lại theo thứ tự id trả về từ câu tìm kiếm
+	private static <T> Page<T> inRankOrder(Page<UUID> ids, List<T> rows, Function<T, UUID> idOf) {
+		Map<UUID, Integer> rank = new HashMap<>();
+		for (UUID id : ids.getContent()) {
+			rank.put(id, rank.size());
+		}
+		List<T> sorted = rows.stream()
+				.sorted(Comparator.comparing(row -> rank.get(idOf.apply(row))))
+				.toList();
+		return new PageImpl<>(sorted, ids.getPageable(), ids.getTotalElements());
+	}
+
+	// % và _ trong từ khóa là ký tự thường, không phải wildcard (tìm "%" không được trả về mọi event)
+	static String escapeLike(String search) {
+		return search.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+
+	private Page<Event> likeSearch(String search, EventStatus status, UUID ownerId, Pageable pageable) {
+		User owner = ownerId != null ? userRepository.getReferenceById(ownerId) : null;
+		if (status != null && owner != null) {
+			return eventRepository.findByOwnerAndStatusAndEventNameContainingIgnoreCase(owner, status, search, pageable);
+		} else if (status != null) {
+			return eventRepository.findByStatusAndEventNameContainingIgnoreCase(status, search, pageable);
+		} else if (owner != null) {
+			return eventRepository.findByOwnerAndEventNameContainingIgnoreCase(owner, search, pageable);
+		}
+		return eventRepository.findByEventNameContainingIgnoreCase(search, pageable);
+	}
+}
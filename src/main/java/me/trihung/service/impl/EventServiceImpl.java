@@ -1,36 +1,75 @@
 package me.trihung.service.impl;
 
-import java.util.Comparator;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.ValidationException;
 import me.trihung.dto.EventDto;
 import me.trihung.dto.EventPageResponse;
+import me.trihung.dto.EventSliceResponse;
+import me.trihung.dto.EventSummaryDto;
+import me.trihung.dto.EventSummaryPageResponse;
 import me.trihung.dto.request.EventRequest;
+import me.trihung.config.CacheConfig;
 import me.trihung.entity.Event;
 import me.trihung.entity.User;
+import me.trihung.entity.Zone;
 import me.trihung.enums.EventStatus;
 import me.trihung.exception.BadRequestException;
 import me.trihung.exception.UnauthorizedException;
+import me.trihung.helper.ScrollCursorCodec;
 import me.trihung.helper.SecurityHelper;
 import me.trihung.mapper.EventMapper;
 import me.trihung.repository.EventRepository;
+import me.trihung.service.EventSearchService;
 import me.trihung.service.EventService;
 import me.trihung.service.FileStorageService; // Import the new service
+import me.trihung.service.TicketInventoryService;
 
 @Service
 public class EventServiceImpl implements EventService {
 
+	// Số event tối đa của 1 trang/cửa sổ, size lớn hơn bị cắt về giá trị này
+	private static final int MAX_PAGE_SIZE = 100;
+
+	// Các field được phép sort khi phân trang bằng cursor và ở danh sách rút gọn, kèm kiểu để đọc lại giá trị từ cursor
+	private static final Map<String, Class<?>> SCROLL_SORT_FIELDS = Map.of(
+			"createdDate", LocalDateTime.class,
+			"updatedDate", LocalDateTime.class,
+			"startDate", LocalDate.class,
+			"endDate", LocalDate.class,
+			"eventName", String.class,
+			"eventCategory", String.class,
+			"totalSeats", Integer.class,
+			"totalCapacityValue", BigDecimal.class);
+
 	@Autowired
 	private EventRepository eventRepository;
 
@@ -43,65 +82,153 @@ public class EventServiceImpl implements EventService {
 	@Autowired
 	private SecurityHelper securityHelper;
 
-	@Transactional
+	@Autowired
+	private TicketInventoryService ticketInventoryService;
+
+	@Autowired
+	private ScrollCursorCodec scrollCursorCodec;
+
+	@Autowired
+	private EventSearchService eventSearchService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	void init() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@CacheEvict(cacheNames = { CacheConfig.PUBLISHED_EVENTS, CacheConfig.PUBLISHED_EVENT_JSON }, key = "#result.id")
 	public EventDto createEvent(EventRequest requestDto) {
-		// Các validation bắt buộc khi publish
-		validateEventImage(requestDto.getEventImage());
-		validateEventImage(requestDto.getEventBanner());
-		if (requestDto.getOrganizer() != null) {
+		// Các validation bắt buộc khi publish, ảnh đã lưu qua stream upload thì đã được kiểm tra lúc đọc
+		if (requestDto.getEventImageUrl() == null) {
+			validateEventImage(requestDto.getEventImage());
+		}
+		if (requestDto.getEventBannerUrl() == null) {
+			validateEventImage(requestDto.getEventBanner());
+		}
+		if (requestDto.getOrganizer() != null && requestDto.getOrganizer().getLogoUrl() == null) {
 			validateEventImage(requestDto.getOrganizer().getLogo());
 		}
 
-		return saveOrUpdateEvent(requestDto, EventStatus.PUBLISHED);
+		return saveWithImages(requestDto, EventStatus.PUBLISHED);
 	}
 
 	@Override
-	@Transactional
+	@CacheEvict(cacheNames = { CacheConfig.PUBLISHED_EVENTS, CacheConfig.PUBLISHED_EVENT_JSON }, key = "#result.id")
 	public EventDto saveDraft(EventRequest requestDto) {
-		return saveOrUpdateEvent(requestDto, EventStatus.DRAFT);
+		return saveWithImages(requestDto, EventStatus.DRAFT);
+	}
+
+	// Ghi ảnh xong trước rồi mới mở transaction, transaction chỉ còn ghi đường dẫn nên giữ connection ngắn.
+	// Lưu DB lỗi (kể cả lúc commit) thì hoàn tác các file của request này
+	private EventDto saveWithImages(EventRequest requestDto, EventStatus status) {
+		List<String> stagedUrls = stageImages(requestDto);
+		try {
+			return transactionTemplate.execute(tx -> saveOrUpdateEvent(requestDto, status));
+		} catch (RuntimeException ex) {
+			stagedUrls.forEach(fileStorageService::discardFile);
+			throw ex;
+		}
+	}
+
+	// Lưu song song các ảnh còn ở dạng MultipartFile và ghi đường dẫn vào requestDto.
+	// Trả về mọi đường dẫn ảnh của request, gồm cả ảnh đã lưu sẵn từ stream upload
+	private List<String> stageImages(EventRequest requestDto) {
+		EventRequest.OrganizerRequest organizer = requestDto.getOrganizer();
+		MultipartFile image = requestDto.getEventImageUrl() == null ? requestDto.getEventImage() : null;
+		MultipartFile banner = requestDto.getEventBannerUrl() == null ? requestDto.getEventBanner() : null;
+		MultipartFile logo = organizer != null && organizer.getLogoUrl() == null ? organizer.getLogo() : null;
+		// Kiểm tra hết trước khi ghi bất kỳ file nào
+		for (MultipartFile file : new MultipartFile[] { image, banner, logo }) {
+			if (file != null) {
+				validateEventImage(file);
+			}
+		}
+
+		CompletableFuture<String> imageFuture = storeAsync(image);
+		CompletableFuture<String> bannerFuture = storeAsync(banner);
+		CompletableFuture<String> logoFuture = storeAsync(logo);
+		List<CompletableFuture<String>> futures = List.of(imageFuture, bannerFuture, logoFuture);
+		try {
+			CompletableFuture.allOf(imageFuture, bannerFuture, logoFuture).join();
+		} catch (CompletionException ex) {
+			// 1 file lỗi thì hoàn tác các file đã ghi xong
+			futures.stream()
+					.filter(future -> !future.isCompletedExceptionally())
+					.map(CompletableFuture::join)
+					.filter(Objects::nonNull)
+					.forEach(fileStorageService::discardFile);
+			throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+		}
+
+		if (imageFuture.join() != null) {
+			requestDto.setEventImageUrl(imageFuture.join());
+		}
+		if (bannerFuture.join() != null) {
+			requestDto.setEventBannerUrl(bannerFuture.join());
+		}
+		if (logoFuture.join() != null) {
+			organizer.setLogoUrl(logoFuture.join());
+		}
+		List<String> urls = new ArrayList<>(3);
+		urls.add(requestDto.getEventImageUrl());
+		urls.add(requestDto.getEventBannerUrl());
+		urls.add(organizer != null ? organizer.getLogoUrl() : null);
+		urls.removeIf(Objects::isNull);
+		return urls;
+	}
+
+	private CompletableFuture<String> storeAsync(MultipartFile file) {
+		return file == null ? CompletableFuture.completedFuture(null) : fileStorageService.storeFileAsync(file);
 	}
 
 	private EventDto saveOrUpdateEvent(EventRequest requestDto, EventStatus status) {
-		User user = securityHelper.getCurrentUser();
 		Event event;
+		List<UUID> oldZoneIds = List.of();
 		if (requestDto.getId() == null) {
 			event = eventMapper.toEvent(requestDto);
-			event.setOwner(user);
+			event.setOwner(securityHelper.getCurrentUserReference());
 		} else {
 			event = eventRepository.findById(requestDto.getId()).orElseThrow(
 					() -> BadRequestException.message("Không tìm thấy sự kiện với id: " + requestDto.getId()));
 			// Cập nhật các trường từ DTO vào entity đã tồn tại (đã setup bỏ qua các field
 			// của dto = null k ghi đè vào entity)
 			validateOwner(event);
+			oldZoneIds = zoneIds(event);
 			eventMapper.updateEventFromRequest(requestDto, event);
 		}
 		
 		event.setStatus(status);
-		System.out.println("end time"+event.getEndTime());
-		if (requestDto.getEventImage() != null) {
-			validateEventImage(requestDto.getEventImage());
-			String imageUrl = fileStorageService.storeFile(requestDto.getEventImage());
-			event.setEventImage(imageUrl);
+		// Ảnh đã được lưu trước khi mở transaction (stageImages), ở đây chỉ ghi đường dẫn
+		if (requestDto.getEventImageUrl() != null) {
+			fileStorageService.releaseFile(event.getEventImage());
+			event.setEventImage(requestDto.getEventImageUrl());
 		}
-		if (requestDto.getEventBanner() != null) {
-			validateEventImage(requestDto.getEventBanner());
-			String bannerUrl = fileStorageService.storeFile(requestDto.getEventBanner());
-			event.setEventBanner(bannerUrl);
+		if (requestDto.getEventBannerUrl() != null) {
+			fileStorageService.releaseFile(event.getEventBanner());
+			event.setEventBanner(requestDto.getEventBannerUrl());
 		}
-		if (requestDto.getOrganizer() != null && requestDto.getOrganizer().getLogo() != null) {
-			validateEventImage(requestDto.getOrganizer().getLogo());
+		if (requestDto.getOrganizer() != null && requestDto.getOrganizer().getLogoUrl() != null) {
 			if (event.getOrganizer() == null) {
 				event.setOrganizer(new me.trihung.entity.Organizer());
 			}
-			String logoUrl = fileStorageService.storeFile(requestDto.getOrganizer().getLogo());
-			event.getOrganizer().setLogo(logoUrl);
+			fileStorageService.releaseFile(event.getOrganizer().getLogo());
+			event.getOrganizer().setLogo(requestDto.getOrganizer().getLogoUrl());
 		}
 
 		if (event.getZones() != null) {
 			event.getZones().forEach(zone -> zone.setEvent(event));
 		}
 
+		// Zones vừa được thêm/sửa/xóa, cập nhật lại tổng số ghế và giá trị lưu sẵn trên event
+		event.recalculateTotals();
 		Event savedEvent = eventRepository.save(event);
+		// Zone cũ bị thay thế/sửa số vé, kho vé sẽ nạp lại từ DB ở lần giữ chỗ tiếp theo
+		ticketInventoryService.evict(oldZoneIds);
 		return eventMapper.toEventResponseDto(savedEvent);
 	}
 
@@ -114,18 +241,19 @@ public class EventServiceImpl implements EventService {
 	        String search,
 	        String sortBy,
 	        String sortDirection,
-	        boolean hasOwner
+	        boolean hasOwner,
+	        boolean includeGeometry
 	) {
 		
 		User user = null;
 		if (hasOwner)
-			user = securityHelper.getCurrentUser();
+			user = securityHelper.getCurrentUserReference();
 	    Sort sort = Sort.unsorted();
-	    if (sortBy != null && !sortBy.isBlank() && !"totalSeats".equalsIgnoreCase(sortBy)) {
+	    if (sortBy != null && !sortBy.isBlank()) {
 	        sort = Sort.by("ASC".equalsIgnoreCase(sortDirection) ? Sort.Direction.ASC : Sort.Direction.DESC, sortBy);
 	    }
 
-	    Pageable pageable = PageRequest.of(page, size, sort);
+	    Pageable pageable = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), sort);
 	    Page<Event> eventPage;
 	    EventStatus filterStatus = null;
 	    if (status != null && !"ALL".equalsIgnoreCase(status)) {
@@ -134,15 +262,7 @@ public class EventServiceImpl implements EventService {
 
 
 	    if (search != null && !search.isBlank()) {
-	        if (filterStatus != null && hasOwner) {
-	            eventPage = eventRepository.findByOwnerAndStatusAndEventNameContainingIgnoreCase(user, filterStatus, search, pageable);
-	        } else if (filterStatus != null) {
-	            eventPage = eventRepository.findByStatusAndEventNameContainingIgnoreCase(filterStatus, search, pageable);
-	        } else if (hasOwner) {
-	            eventPage = eventRepository.findByOwnerAndEventNameContainingIgnoreCase(user, search, pageable);
-	        } else {
-	            eventPage = eventRepository.findByEventNameContainingIgnoreCase(search, pageable);
-	        }
+	        eventPage = eventSearchService.search(search.trim(), filterStatus, hasOwner ? user.getId() : null, pageable);
 	    } else {
 	        if (filterStatus != null && hasOwner) {
 	            eventPage = eventRepository.findByOwnerAndStatus(user, filterStatus, pageable);
@@ -155,23 +275,8 @@ public class EventServiceImpl implements EventService {
 	        }
 	    }
 	    
-	    List<Event> sortedEvents = eventPage.getContent();
-	    if ("totalSeats".equalsIgnoreCase(sortBy)) {
-	        Comparator<Event> comparator = Comparator.comparingInt(
-	                e -> e.getZones().stream()
-	                        .mapToInt(z -> z.getMaxTickets() != null ? z.getMaxTickets() : 0)
-	                        .sum()
-	        );
-	        if ("DESC".equalsIgnoreCase(sortDirection)) {
-	            comparator = comparator.reversed();
-	        }
-	        sortedEvents = sortedEvents.stream()
-	                .sorted(comparator)
-	                .toList();
-	    }
-
 	    return new EventPageResponse(
-	            eventMapper.toEventResponseDtoList(sortedEvents),
+	            eventMapper.toEventDtoList(eventPage.getContent(), includeGeometry),
 	            eventPage.getTotalElements(),
 	            eventPage.getTotalPages(),
 	            eventPage.getNumber(),
@@ -179,6 +284,67 @@ public class EventServiceImpl implements EventService {
 	    );
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public EventSummaryPageResponse getPublishedEventSummaries(int page, int size, String search, String sortBy,
+			String sortDirection) {
+		Sort sort = Sort.unsorted();
+		if (sortBy != null && !sortBy.isBlank()) {
+			// Query constructor expression không kiểm tra field khi dựng Sort, field lạ chỉ lỗi lúc chạy SQL
+			if (!SCROLL_SORT_FIELDS.containsKey(sortBy)) {
+				throw BadRequestException.message("Không hỗ trợ sắp xếp theo: " + sortBy);
+			}
+			sort = Sort.by("ASC".equalsIgnoreCase(sortDirection) ? Sort.Direction.ASC : Sort.Direction.DESC, sortBy);
+		}
+		Pageable pageable = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), sort);
+		// Tìm kiếm đi qua cùng đường trigram/không dấu với getEventsPaged để 2 danh sách cho cùng kết quả
+		Page<EventSummaryDto> summaries = search != null && !search.isBlank()
+				? eventSearchService.searchSummaries(search.trim(), EventStatus.PUBLISHED, pageable)
+				: eventRepository.findSummaries(EventStatus.PUBLISHED, null, pageable);
+		return new EventSummaryPageResponse(
+				summaries.getContent(),
+				summaries.getTotalElements(),
+				summaries.getTotalPages(),
+				summaries.getNumber(),
+				summaries.getSize());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public EventSliceResponse scrollPublishedEvents(String cursor, int size, String search, String sortBy,
+			String sortDirection, boolean includeGeometry) {
+		if (size < 1) {
+			throw BadRequestException.message("Kích thước trang phải lớn hơn 0");
+		}
+		int limit = Math.min(size, MAX_PAGE_SIZE);
+		String sortField = sortBy == null || sortBy.isBlank() ? "createdDate" : sortBy;
+		Class<?> sortType = SCROLL_SORT_FIELDS.get(sortField);
+		if (sortType == null) {
+			throw BadRequestException.message("Không hỗ trợ sắp xếp theo: " + sortBy);
+		}
+		Sort.Direction direction = "ASC".equalsIgnoreCase(sortDirection) ? Sort.Direction.ASC : Sort.Direction.DESC;
+		// Thêm id làm khóa phụ để các event trùng giá trị sort vẫn có thứ tự cố định
+		Sort sort = Sort.by(direction, sortField).and(Sort.by(direction, "id"));
+		Map<String, Class<?>> keyTypes = new LinkedHashMap<>();
+		keyTypes.put(sortField, sortType);
+		keyTypes.put("id", UUID.class);
+		ScrollPosition position = scrollCursorCodec.decode(cursor, keyTypes);
+
+		Window<Event> window;
+		if (search != null && !search.isBlank()) {
+			// Khớp không dấu giống /pagepublic và /pagepublic/summary, nhưng xếp theo sortBy thay vì độ liên quan
+			window = eventSearchService.scroll(search.trim(), EventStatus.PUBLISHED, position, sort, limit);
+		} else {
+			window = eventRepository.findByStatus(EventStatus.PUBLISHED, position, sort, Limit.of(limit));
+		}
+
+		String nextCursor = window.hasNext() && !window.isEmpty()
+				? scrollCursorCodec.encode(window.positionAt(window.size() - 1))
+				: null;
+		return new EventSliceResponse(eventMapper.toEventDtoList(window.getContent(), includeGeometry), nextCursor,
+				window.hasNext(), limit);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public List<EventDto> getAllEvents() {
@@ -188,7 +354,16 @@ public class EventServiceImpl implements EventService {
 
 	@Override
 	@Transactional(readOnly = true)
+	// Chỉ cache event đã PUBLISHED, event nháp phải kiểm tra chủ sở hữu ở mỗi lần đọc
+	@Cacheable(cacheNames = CacheConfig.PUBLISHED_EVENTS, key = "#id",
+			unless = "#result == null || #result.eventStatus != T(me.trihung.enums.EventStatus).PUBLISHED")
 	public EventDto getEventById(UUID id) {
+		return loadEventById(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public EventDto loadEventById(UUID id) {
 		Event event = eventRepository.findById(id)
 				.orElseThrow(() -> BadRequestException.message("Không tìm thấy event với id: " + id));
 		if (event.getStatus()!=EventStatus.PUBLISHED) {
@@ -199,16 +374,31 @@ public class EventServiceImpl implements EventService {
 
 	@Override
 	@Transactional
+	@CacheEvict(cacheNames = { CacheConfig.PUBLISHED_EVENTS, CacheConfig.PUBLISHED_EVENT_JSON }, key = "#id")
 	public void deleteEvent(UUID id) {
 		Event event = eventRepository.findById(id)
 				.orElseThrow(() -> BadRequestException.message("Không tìm thấy event với id: " + id));
 		validateOwner(event);
+		List<UUID> zoneIds = zoneIds(event);
+		// Bỏ tham chiếu tới ảnh của event, ảnh không còn ai dùng sẽ được dọn sau.
+		// Logo thuộc organizer (có thể dùng chung nhiều event) nên vẫn giữ
+		fileStorageService.releaseFile(event.getEventImage());
+		fileStorageService.releaseFile(event.getEventBanner());
 		eventRepository.deleteById(id);
+		ticketInventoryService.evict(zoneIds);
+	}
+
+	private List<UUID> zoneIds(Event event) {
+		if (event.getZones() == null) {
+			return List.of();
+		}
+		return event.getZones().stream().map(Zone::getId).collect(Collectors.toList());
 	}
 	
 	public void validateOwner(Event event) {
-		User user = securityHelper.getCurrentUser();
-		if (!user.equals(event.getOwner()))
+		// So sánh theo id, getId() của proxy owner không làm Hibernate tải user
+		UUID userId = securityHelper.getCurrentUserId();
+		if (event.getOwner() == null || !userId.equals(event.getOwner().getId()))
 			throw UnauthorizedException.message("Bạn không phải chủ sở hữu sự kiện này");
 	}
 
@@ -0,0 +1,117 @@
+package me.trihung.service.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadByteCountLimitException;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import me.trihung.dto.request.EventRequest;
+import me.trihung.exception.BadRequestException;
+import me.trihung.service.EventUploadService;
+import me.trihung.service.FileStorageService;
+
+/**
+ * Đọc thẳng body multipart bằng commons-fileupload2 thay vì để container spool cả request trước.
+ * Part vượt giới hạn hoặc không phải ảnh bị từ chối ngay khi đọc tới, phần body còn lại không được đọc
+ * (Tomcat chỉ nuốt tối đa server.tomcat.max-swallow-size rồi đóng kết nối).
+ * Cần spring.servlet.multipart.resolveLazily = true để DispatcherServlet không parse body trước.
+ */
+@Service
+@Slf4j
+public class EventUploadServiceImpl implements EventUploadService {
+
+    private static final String EVENT_DATA = "eventData";
+    private static final String EVENT_IMAGE = "eventImage";
+    private static final String EVENT_BANNER = "eventBanner";
+    private static final String ORGANIZER_LOGO = "organizerLogo";
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.uploads.max-file-size:5MB}")
+    private DataSize maxFileSize;
+
+    @Value("${app.uploads.max-request-size:16MB}")
+    private DataSize maxRequestSize;
+
+    @Override
+    public EventRequest readEventRequest(HttpServletRequest request) {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw BadRequestException.message("Request phải là multipart/form-data");
+        }
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        // Giới hạn áp dụng trong lúc đọc từng part, không chờ hết body
+        upload.setFileSizeMax(maxFileSize.toBytes());
+        upload.setSizeMax(maxRequestSize.toBytes());
+
+        String eventData = null;
+        Map<String, String> imageUrls = new HashMap<>();
+        List<String> storedUrls = new ArrayList<>();
+        boolean completed = false;
+        try {
+            FileItemInputIterator parts = upload.getItemIterator(request);
+            while (parts.hasNext()) {
+                FileItemInput part = parts.next();
+                String name = part.getFieldName();
+                if (EVENT_DATA.equals(name)) {
+                    eventData = new String(part.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                } else if (EVENT_IMAGE.equals(name) || EVENT_BANNER.equals(name) || ORGANIZER_LOGO.equals(name)) {
+                    if (imageUrls.containsKey(name)) {
+                        throw BadRequestException.message("Part " + name + " bị gửi trùng");
+                    }
+                    String url = fileStorageService.storeImage(part.getInputStream());
+                    storedUrls.add(url);
+                    imageUrls.put(name, url);
+                }
+                // Part khác bị bỏ qua, iterator tự bỏ phần nội dung chưa đọc
+            }
+            if (eventData == null) {
+                throw BadRequestException.message("Thiếu dữ liệu eventData");
+            }
+            EventRequest requestDto = objectMapper.readValue(eventData, EventRequest.class);
+            requestDto.setEventImageUrl(imageUrls.get(EVENT_IMAGE));
+            requestDto.setEventBannerUrl(imageUrls.get(EVENT_BANNER));
+            if (imageUrls.containsKey(ORGANIZER_LOGO)) {
+                if (requestDto.getOrganizer() == null) {
+                    requestDto.setOrganizer(new EventRequest.OrganizerRequest());
+                }
+                requestDto.getOrganizer().setLogoUrl(imageUrls.get(ORGANIZER_LOGO));
+            }
+            completed = true;
+            return requestDto;
+        } catch (FileUploadByteCountLimitException ex) {
+            throw BadRequestException.message("Kích thước file tối đa " + maxFileSize.toMegabytes() + "MB");
+        } catch (FileUploadSizeException ex) {
+            throw BadRequestException.message("Tổng dung lượng upload tối đa " + maxRequestSize.toMegabytes() + "MB");
+        } catch (IOException ex) {
+            log.warn("Failed to read streamed event upload", ex);
+            throw BadRequestException.message("Không đọc được dữ liệu upload");
+        } finally {
+            if (!completed) {
+                // Ảnh đã lưu của request bị từ chối không còn ai dùng, xóa ngay thay vì chờ GC
+                storedUrls.forEach(fileStorageService::discardFile);
+            }
+        }
+    }
+}
@@ -1,32 +1,104 @@
 package me.trihung.service.impl;
 
 import me.trihung.exception.BadRequestException;
+import me.trihung.helper.StaticFileWriter;
+import me.trihung.repository.StoredFileRepository;
+import me.trihung.service.BlobStorage;
 import me.trihung.service.FileStorageService;
+import me.trihung.service.ImageVariantService;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
+@Slf4j
 public class FileStorageServiceImpl implements FileStorageService {
 
-    private final Path fileStorageLocation;
+    private static final String URL_PREFIX = "/uploads/";
 
-    public FileStorageServiceImpl() {
-        // Define the root storage location
-        this.fileStorageLocation = Paths.get("uploads").toAbsolutePath().normalize();
-        try {
-            Files.createDirectories(this.fileStorageLocation);
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
+    // Loại ảnh được nhận qua stream upload và đuôi file lưu tương ứng
+    private static final Map<String, String> IMAGE_EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/webp", ".webp");
+
+    private final Tika tika = new Tika();
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.uploads.store-workers:4}")
+    private int storeWorkers;
+
+    private Executor storeExecutor;
+
+    @Autowired
+    private BlobStorage blobStorage;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private StaticFileWriter staticFileWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Ghi file chủ yếu chờ I/O, dùng virtual thread khi ứng dụng đã bật (và chạy JDK 21+), không thì pool cố định
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("file-store-");
+            executor.setVirtualThreads(true);
+            storeExecutor = executor;
+        } else {
+            storeExecutor = Executors.newFixedThreadPool(storeWorkers);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (storeExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
         }
     }
 
@@ -37,27 +109,120 @@ public class FileStorageServiceImpl implements FileStorageService {
         }
 
         String originalFileName = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
+        if(originalFileName.contains("..")) {
+            throw BadRequestException.message("Filename contains invalid path sequence " + originalFileName);
+        }
         String fileExtension = "";
         try {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+            fileExtension = originalFileName.substring(originalFileName.lastIndexOf(".")).toLowerCase(Locale.ROOT);
         } catch(Exception e) {
         }
-        String storedFileName = UUID.randomUUID().toString() + fileExtension;
 
+        try (InputStream inputStream = file.getInputStream()) {
+            return store(inputStream, fileExtension);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> storeFileAsync(MultipartFile file) {
+        return CompletableFuture.supplyAsync(() -> storeFile(file), storeExecutor);
+    }
+
+    @Override
+    public String storeImage(InputStream input) throws IOException {
+        // Tika chỉ đọc vài byte đầu (mark/reset) để nhận dạng, phần còn lại vẫn đi thẳng xuống file
+        InputStream buffered = new BufferedInputStream(input);
+        String extension = IMAGE_EXTENSIONS.get(tika.detect(buffered));
+        if (extension == null) {
+            throw BadRequestException.message("Chỉ chấp nhận file JPG, PNG, WEBP");
+        }
+        return store(buffered, extension);
+    }
+
+    private String store(InputStream input, String fileExtension) throws IOException {
+        Path tempFile = null;
         try {
-            if(originalFileName.contains("..")) {
-                throw BadRequestException.message("Filename contains invalid path sequence " + originalFileName);
+            // Ghi ra file tạm và tính SHA-256 trong cùng 1 lần đọc stream
+            tempFile = blobStorage.createStagingFile();
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            long size = Files.copy(new DigestInputStream(input, digest), tempFile, StandardCopyOption.REPLACE_EXISTING);
+            String sha256 = Hex.encodeHexString(digest.digest());
+            String storedFileName = sha256 + fileExtension;
+
+            // Thêm tham chiếu trước rồi mới kiểm tra blob: UploadGarbageCollector xóa dòng stored_files và blob
+            // trong cùng 1 transaction nên addReference chạy cùng lúc sẽ chờ, và blob vừa bị dọn được ghi lại ở dưới.
+            // Nội dung đã có thì không ghi lại file và không tạo lại bản thu nhỏ.
+            // 2 request cùng nội dung có thể cùng ghi, nội dung giống nhau nên ghi đè không sao
+            storedFileRepository.addReference(storedFileName, sha256, size);
+            boolean created = false;
+            if (!blobStorage.exists(storedFileName)) {
+                String contentType = MediaTypeFactory.getMediaType(storedFileName)
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+                try {
+                    blobStorage.put(storedFileName, tempFile, contentType);
+                } catch (IOException | RuntimeException ex) {
+                    // Không để lại dòng stored_files trỏ tới blob không tồn tại
+                    storedFileRepository.releaseReference(storedFileName);
+                    storedFileRepository.deleteUnreferenced(storedFileName);
+                    throw ex;
+                }
+                // Blob cùng tên có thể vừa bị GC xóa, bỏ metadata cũ (kích thước, ETag) còn trong cache
+                staticFileWriter.evict(storedFileName);
+                created = true;
+            }
+            if (created) {
+                // Tạo bản thumb/card/full ở nền, request upload không phải chờ
+                imageVariantService.generateVariantsAsync(storedFileName);
             }
 
-            Path targetLocation = this.fileStorageLocation.resolve(storedFileName);
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            return URL_PREFIX + storedFileName;
+        } finally {
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
             }
+        }
+    }
 
-            return "/uploads/" + storedFileName;
+    @Override
+    public void releaseFile(String url) {
+        if (url == null || !url.startsWith(URL_PREFIX)) {
+            return;
+        }
+        // File cũ (tên UUID) không có dòng stored_files, câu update không làm gì
+        storedFileRepository.releaseReference(url.substring(URL_PREFIX.length()));
+    }
 
-        } catch (IOException ex) {
-            throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
+    @Override
+    public void discardFile(String url) {
+        if (url == null || !url.startsWith(URL_PREFIX)) {
+            return;
+        }
+        String fileName = url.substring(URL_PREFIX.length());
+        storedFileRepository.releaseReference(fileName);
+        // Xóa dòng và blob trong cùng transaction như UploadGarbageCollector, để store() cùng nội dung chạy song song
+        // chờ rồi ghi lại blob. Cùng nội dung vẫn đang được event khác dùng thì chỉ giảm refCount
+        try {
+            Boolean deleted = transactionTemplate.execute(status -> {
+                if (storedFileRepository.deleteUnreferenced(fileName) == 0) {
+                    return false;
+                }
+                try {
+                    blobStorage.delete(fileName);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(deleted)) {
+                return;
+            }
+        } catch (UncheckedIOException ex) {
+            log.warn("Failed to delete discarded file {}", fileName, ex);
+            return;
         }
+        staticFileWriter.evict(fileName);
+        imageVariantService.deleteVariants(fileName);
     }
-}
\ No newline at end of file
+}
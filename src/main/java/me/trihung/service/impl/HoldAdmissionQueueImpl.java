@@ -0,0 +1,210 @@
+package me.trihung.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.trihung.entity.Reservation;
+import me.trihung.entity.Zone;
+import me.trihung.repository.ReservationRepository;
+import me.trihung.repository.ZoneRepository;
+import me.trihung.service.HoldAdmissionQueue;
+
+/**
+ * Gom các yêu cầu giữ chỗ của cùng 1 zone trong một khoảng ngắn (batch window) rồi
+ * xử lý cả nhóm trong 1 transaction: khóa dòng zone 1 lần, cấp vé theo thứ tự đến (FIFO),
+ * ghi tất cả giữ chỗ được chấp nhận bằng 1 lần insert batch và cộng heldTickets 1 lần.
+ * Yêu cầu đầu tiên không đủ vé bị từ chối cùng mọi yêu cầu đến sau nó trong nhóm, kể cả yêu cầu
+ * nhỏ hơn còn vừa: yêu cầu lớn không bị các yêu cầu nhỏ đến sau chen lên trước.
+ * Hàng đợi của zone bị bỏ khỏi map khi đã rỗng, nên số zone từng nhận giữ chỗ không làm map phình ra.
+ */
+@Service
+@Slf4j
+public class HoldAdmissionQueueImpl implements HoldAdmissionQueue {
+
+	@Autowired
+	private ZoneRepository zoneRepository;
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${app.reservation.batch.enabled:false}")
+	private boolean enabled;
+
+	@Value("${app.reservation.batch.window-ms:5}")
+	private long windowMs;
+
+	@Value("${app.reservation.batch.max-size:200}")
+	private int maxBatchSize;
+
+	@Value("${app.reservation.batch.workers:4}")
+	private int workers;
+
+	private final Map<UUID, ZoneQueue> queues = new ConcurrentHashMap<>();
+	private ScheduledExecutorService scheduler;
+	private TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	void init() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		if (enabled) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("hold-admission-");
+			threadFactory.setDaemon(true);
+			scheduler = Executors.newScheduledThreadPool(workers, threadFactory);
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		if (scheduler != null) {
+			scheduler.shutdown();
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public Admission submit(Reservation reservation) {
+		PendingHold hold = new PendingHold(reservation);
+		UUID zoneId = reservation.getZone().getId();
+		// Thêm vào hàng đợi trong compute để không xen giữa lúc drain bỏ hàng đợi rỗng khỏi map
+		ZoneQueue queue = queues.compute(zoneId, (id, existing) -> {
+			ZoneQueue target = existing == null ? new ZoneQueue() : existing;
+			target.holds.add(hold);
+			return target;
+		});
+		// Yêu cầu đầu tiên của 1 window sẽ hẹn giờ xử lý cả nhóm
+		if (queue.scheduled.compareAndSet(false, true)) {
+			scheduler.schedule(() -> drain(zoneId, queue), windowMs, TimeUnit.MILLISECONDS);
+		}
+		return hold;
+	}
+
+	private void drain(UUID zoneId, ZoneQueue queue) {
+		try {
+			List<PendingHold> batch = new ArrayList<>(maxBatchSize);
+			PendingHold hold;
+			while (batch.size() < maxBatchSize && (hold = queue.holds.poll()) != null) {
+				// Nhận yêu cầu trước khi ghi, client đã rút yêu cầu (hết thời gian chờ) thì bỏ qua
+				if (hold.claim()) {
+					batch.add(hold);
+				}
+			}
+			if (!batch.isEmpty()) {
+				admit(zoneId, batch);
+			}
+		} finally {
+			queue.scheduled.set(false);
+			// Còn yêu cầu đến trong lúc đang xử lý thì chạy tiếp ngay, không chờ thêm window
+			if (!queue.holds.isEmpty()) {
+				if (queue.scheduled.compareAndSet(false, true)) {
+					scheduler.execute(() -> drain(zoneId, queue));
+				}
+			} else {
+				queues.computeIfPresent(zoneId,
+						(id, existing) -> existing == queue && existing.holds.isEmpty() && !existing.scheduled.get() ? null : existing);
+			}
+		}
+	}
+
+	private void admit(UUID zoneId, List<PendingHold> batch) {
+		List<PendingHold> accepted = new ArrayList<>(batch.size());
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				Zone zone = zoneRepository.findByIdForUpdate(zoneId).orElse(null);
+				if (zone == null) {
+					return;
+				}
+				int remaining = zone.getMaxTickets() - zone.getSoldTickets() - zone.getHeldTickets();
+				int admittedTickets = 0;
+				// Cấp vé theo thứ tự đến, dừng ở yêu cầu đầu tiên không đủ vé: nó và các yêu cầu sau đều bị từ chối
+				for (PendingHold hold : batch) {
+					int quantity = hold.reservation().getQuantity();
+					if (quantity > remaining) {
+						break;
+					}
+					remaining -= quantity;
+					admittedTickets += quantity;
+					accepted.add(hold);
+				}
+				if (!accepted.isEmpty()) {
+					reservationRepository.insertAll(accepted.stream().map(PendingHold::reservation).toList());
+					zoneRepository.addHeldTickets(zoneId, admittedTickets);
+				}
+			});
+		} catch (RuntimeException ex) {
+			log.error("Failed to admit {} holds for zone {}", batch.size(), zoneId, ex);
+			batch.forEach(hold -> hold.result().completeExceptionally(ex));
+			return;
+		}
+		// Chỉ báo kết quả sau khi transaction đã commit
+		batch.forEach(hold -> hold.result().complete(accepted.contains(hold)));
+	}
+
+	private static class ZoneQueue {
+		private final Queue<PendingHold> holds = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	}
+
+	private static class PendingHold implements Admission {
+		private final Reservation reservation;
+		private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+		// Worker (nhận xử lý) và client (rút yêu cầu khi hết giờ) cùng CAS, bên thắng quyết định số phận yêu cầu
+		private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+		private PendingHold(Reservation reservation) {
+			this.reservation = reservation;
+		}
+
+		private Reservation reservation() {
+			return reservation;
+		}
+
+		private CompletableFuture<Boolean> result() {
+			return result;
+		}
+
+		private boolean claim() {
+			return claimed.compareAndSet(false, true);
+		}
+
+		@Override
+		public boolean await(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+			try {
+				return result.get(timeout, unit);
+			} catch (TimeoutException ex) {
+				if (claim()) {
+					throw ex;
+				}
+				// Worker đã nhận yêu cầu, kết quả có ngay khi transaction của nhóm kết thúc
+				return result.get();
+			}
+		}
+	}
+}
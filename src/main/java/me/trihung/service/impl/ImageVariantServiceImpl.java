@@ -0,0 +1,242 @@
+package me.trihung.service.impl;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.trihung.enums.ImageSize;
+import me.trihung.helper.StaticFileWriter;
+import me.trihung.service.BlobStorage;
+import me.trihung.service.ImageVariantService;
+
+/**
+ * Tạo các bản thu nhỏ (thumb/card/full) cho ảnh upload trên 1 pool thread giới hạn.
+ * Bản thu nhỏ được lưu trong BlobStorage cạnh file gốc với key "<tên gốc>.<size>.jpg"
+ * (hoặc .png nếu ảnh có nền trong suốt). Hàng đợi đầy thì bỏ qua ảnh đó, ImageController vẫn trả về file gốc.
+ */
+@Service
+@Slf4j
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+    private static final String[] EXTENSIONS = { "jpg", "png" };
+
+    @Autowired
+    private BlobStorage blobStorage;
+
+    @Autowired
+    private StaticFileWriter staticFileWriter;
+
+    @Value("${app.images.variants.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.images.variants.workers:2}")
+    private int workers;
+
+    @Value("${app.images.variants.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${app.images.variants.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    private ThreadPoolExecutor executor;
+
+    // Kết quả tìm bản thu nhỏ, tránh hỏi BlobStorage (HEAD request với S3) ở mỗi lần tải ảnh.
+    // Hết hạn sau 1 phút để thấy được bản thu nhỏ vừa tạo xong
+    private final Cache<String, Optional<String>> variantLookups = Caffeine.newBuilder()
+            .maximumSize(20000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                (task, pool) -> log.warn("Image variant queue is full, skipping a job"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void generateVariantsAsync(String key) {
+        if (!enabled || key == null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                generateVariants(key);
+            } catch (IOException | RuntimeException ex) {
+                log.error("Failed to generate variants for {}", key, ex);
+            }
+        });
+    }
+
+    @Override
+    public Optional<String> findVariant(String key, ImageSize size) {
+        return variantLookups.get(key + "#" + size.getValue(), lookup -> {
+            for (String extension : EXTENSIONS) {
+                String variant = variantKey(key, size, extension);
+                if (blobStorage.exists(variant)) {
+                    return Optional.of(variant);
+                }
+            }
+            return Optional.empty();
+        });
+    }
+
+    @Override
+    public void deleteVariants(String key) {
+        for (ImageSize size : ImageSize.values()) {
+            variantLookups.invalidate(key + "#" + size.getValue());
+            for (String extension : EXTENSIONS) {
+                String variant = variantKey(key, size, extension);
+                try {
+                    blobStorage.delete(variant);
+                } catch (IOException ex) {
+                    log.warn("Failed to delete variant {} of {}", size, key, ex);
+                }
+                staticFileWriter.evict(variant);
+            }
+        }
+    }
+
+    private void generateVariants(String key) throws IOException {
+        BufferedImage source = read(key, ImageSize.FULL.getMaxDimension());
+        if (source == null) {
+            log.debug("{} is not a readable image, no variants generated", key);
+            return;
+        }
+        boolean alpha = source.getColorModel().hasAlpha();
+        // Tạo từ lớn đến nhỏ, bản nhỏ thu từ bản vừa tạo để đỡ tốn CPU
+        BufferedImage current = source;
+        for (int i = ImageSize.values().length - 1; i >= 0; i--) {
+            ImageSize size = ImageSize.values()[i];
+            current = resize(current, size.getMaxDimension(), alpha);
+            write(current, variantKey(key, size, alpha ? "png" : "jpg"), alpha);
+        }
+    }
+
+    // Đọc ảnh, giải mã bỏ bớt điểm ảnh (subsampling) khi ảnh gốc lớn hơn nhiều so với kích thước cần
+    private BufferedImage read(String key, int targetDimension) throws IOException {
+        // Backend cục bộ thì đọc thẳng file, backend khác thì đọc qua stream
+        Optional<Path> localPath = blobStorage.localPath(key);
+        if (localPath.isPresent()) {
+            try (ImageInputStream input = ImageIO.createImageInputStream(localPath.get().toFile())) {
+                return read(input, targetDimension);
+            }
+        }
+        long size = blobStorage.stat(key).map(BlobStorage.BlobInfo::size).orElse(0L);
+        if (size == 0) {
+            return null;
+        }
+        try (InputStream stream = blobStorage.open(key, 0, size - 1);
+                ImageInputStream input = ImageIO.createImageInputStream(stream)) {
+            return read(input, targetDimension);
+        }
+    }
+
+    private BufferedImage read(ImageInputStream input, int targetDimension) throws IOException {
+        if (input == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+            ImageReadParam param = reader.getDefaultReadParam();
+            int subsampling = Math.max(1, longest / (targetDimension * 2));
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private BufferedImage resize(BufferedImage image, int maxDimension, boolean alpha) {
+        int longest = Math.max(image.getWidth(), image.getHeight());
+        double scale = longest > maxDimension ? (double) maxDimension / longest : 1.0;
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        // Luôn vẽ lại sang ảnh RGB/ARGB chuẩn để encoder JPEG/PNG xử lý được
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Ghi ra file tạm rồi đưa vào BlobStorage, ImageController không bao giờ đọc phải file ghi dở
+    private void write(BufferedImage image, String key, boolean png) throws IOException {
+        Path temp = blobStorage.createStagingFile();
+        try {
+            if (png) {
+                ImageIO.write(image, "png", temp.toFile());
+            } else {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                    writer.setOutput(output);
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+            }
+            blobStorage.put(key, temp, png ? "image/png" : "image/jpeg");
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private String variantKey(String key, ImageSize size, String extension) {
+        return StringUtils.stripFilenameExtension(key) + "." + size.getValue() + "." + extension;
+    }
+}
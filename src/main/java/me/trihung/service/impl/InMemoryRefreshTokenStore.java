@@ -0,0 +1,75 @@
+package me.trihung.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import me.trihung.entity.RefreshToken;
+import me.trihung.service.RefreshTokenStore;
+
+/**
+ * Lưu refresh token trong bộ nhớ, dùng cho môi trường 1 instance không cần giữ phiên
+ * đăng nhập qua các lần khởi động lại (khởi động lại thì người dùng phải đăng nhập lại).
+ */
+@Service
+@ConditionalOnProperty(name = "app.refresh-token.store", havingValue = "memory")
+public class InMemoryRefreshTokenStore implements RefreshTokenStore {
+
+	private final Map<String, RefreshToken> tokens = new ConcurrentHashMap<>();
+	// bucket ngày hết hạn -> các hash thuộc bucket đó
+	private final NavigableMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+	@Override
+	public void save(String token, String username, LocalDateTime expireTime) {
+		String hash = RefreshTokenStore.hash(token);
+		long bucket = RefreshTokenStore.bucket(expireTime);
+		tokens.put(hash, RefreshToken.builder()
+				.tokenHash(hash)
+				.username(username)
+				.expireTime(expireTime)
+				.expireBucket(bucket)
+				.build());
+		buckets.computeIfAbsent(bucket, key -> ConcurrentHashMap.newKeySet()).add(hash);
+	}
+
+	@Override
+	public Optional<RefreshToken> find(String token) {
+		return Optional.ofNullable(tokens.get(RefreshTokenStore.hash(token)));
+	}
+
+	@Override
+	public boolean delete(String token, String username) {
+		String hash = RefreshTokenStore.hash(token);
+		RefreshToken refreshToken = tokens.get(hash);
+		if (refreshToken == null || !refreshToken.getUsername().equals(username)
+				|| !tokens.remove(hash, refreshToken)) {
+			return false;
+		}
+		Set<String> bucket = buckets.get(refreshToken.getExpireBucket());
+		if (bucket != null) {
+			bucket.remove(hash);
+		}
+		return true;
+	}
+
+	@Override
+	public int purgeExpired(LocalDateTime now) {
+		int removed = 0;
+		Map<Long, Set<String>> expired = buckets.headMap(RefreshTokenStore.bucket(now));
+		for (Long bucket : expired.keySet()) {
+			Set<String> hashes = buckets.remove(bucket);
+			if (hashes != null) {
+				hashes.forEach(tokens::remove);
+				removed += hashes.size();
+			}
+		}
+		return removed;
+	}
+}
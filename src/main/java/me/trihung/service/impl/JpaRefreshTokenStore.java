@@ -0,0 +1,46 @@
+package me.trihung.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import me.trihung.entity.RefreshToken;
+import me.trihung.repository.RefreshTokenRepository;
+import me.trihung.service.RefreshTokenStore;
+
+@Service
+@ConditionalOnProperty(name = "app.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	@Override
+	public void save(String token, String username, LocalDateTime expireTime) {
+		RefreshToken refreshToken = RefreshToken.builder()
+				.tokenHash(RefreshTokenStore.hash(token))
+				.username(username)
+				.expireTime(expireTime)
+				.expireBucket(RefreshTokenStore.bucket(expireTime))
+				.build();
+		refreshTokenRepository.save(refreshToken);
+	}
+
+	@Override
+	public Optional<RefreshToken> find(String token) {
+		return refreshTokenRepository.findByTokenHash(RefreshTokenStore.hash(token));
+	}
+
+	@Override
+	public boolean delete(String token, String username) {
+		return refreshTokenRepository.deleteByTokenHashAndUsername(RefreshTokenStore.hash(token), username) > 0;
+	}
+
+	@Override
+	public int purgeExpired(LocalDateTime now) {
+		return refreshTokenRepository.deleteExpiredBuckets(RefreshTokenStore.bucket(now));
+	}
+}
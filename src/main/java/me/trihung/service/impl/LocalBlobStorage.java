@@ -0,0 +1,177 @@
+package me.trihung.service.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import me.trihung.service.BlobStorage;
+
+/**
+ * Lưu blob trong 1 thư mục trên đĩa (mặc định ./uploads như trước). File đang ghi có tên bắt đầu
+ * bằng dấu chấm và chỉ được đổi sang tên thật khi đã ghi xong.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStorage implements BlobStorage {
+
+    @Value("${app.storage.local.root:uploads}")
+    private String root;
+
+    private Path rootLocation;
+
+    @PostConstruct
+    void init() {
+        rootLocation = Paths.get(root).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(rootLocation);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create the directory where the uploaded files will be stored.", ex);
+        }
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = resolve(key);
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            // File nguồn nằm khác ổ đĩa: copy vào file tạm cùng thư mục rồi đổi tên
+            Path temp = Files.createTempFile(rootLocation, ".put-", ".tmp");
+            try {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // Cùng thư mục với blob nên put là 1 lần đổi tên, tên bắt đầu bằng dấu chấm nên list()/GC bỏ qua
+    @Override
+    public Path createStagingFile() throws IOException {
+        return Files.createTempFile(rootLocation, ".upload-", ".tmp");
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) {
+        try {
+            return Optional.of(info(resolve(key)));
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long start, long end) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(start);
+        InputStream input = Channels.newInputStream(channel);
+        // Giới hạn đúng số byte của đoạn cần đọc
+        return new FilterInputStream(input) {
+            private long remaining = end - start + 1;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = super.read();
+                if (b >= 0) {
+                    remaining--;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int n = super.read(buffer, offset, (int) Math.min(length, remaining));
+                if (n > 0) {
+                    remaining -= n;
+                }
+                return n;
+            }
+        };
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Stream<BlobInfo> list() {
+        try {
+            return Files.list(rootLocation)
+                    .filter(path -> !path.getFileName().toString().startsWith("."))
+                    .flatMap(path -> {
+                        try {
+                            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                            return attributes.isRegularFile() ? Stream.of(info(path, attributes)) : Stream.empty();
+                        } catch (IOException ex) {
+                            // File vừa bị xóa trong lúc liệt kê
+                            return Stream.empty();
+                        }
+                    });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    private BlobInfo info(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (!attributes.isRegularFile()) {
+            throw new NoSuchFileException(path.toString());
+        }
+        return info(path, attributes);
+    }
+
+    private BlobInfo info(Path path, BasicFileAttributes attributes) {
+        String name = path.getFileName().toString();
+        String contentType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        return new BlobInfo(name, attributes.size(), attributes.lastModifiedTime().toInstant(), contentType);
+    }
+
+    // Key là tên file, không cho thoát ra ngoài thư mục gốc
+    private Path resolve(String key) {
+        Path path = rootLocation.resolve(key).normalize();
+        if (!path.getParent().equals(rootLocation)) {
+            throw new IllegalArgumentException("Invalid blob key " + key);
+        }
+        return path;
+    }
+}
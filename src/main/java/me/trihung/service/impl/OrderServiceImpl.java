@@ -20,6 +20,7 @@ import me.trihung.helper.SecurityHelper;
 import me.trihung.mapper.OrderMapper;
 import me.trihung.repository.OrderRepository;
 import me.trihung.service.OrderService;
+import me.trihung.service.RevenueRollupService;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -30,6 +31,9 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private SecurityHelper securityHelper;
 
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
     @Override
     @Transactional
     public OrderDto createOrderFromReservation(Reservation reservation) {
@@ -45,6 +49,8 @@ public class OrderServiceImpl implements OrderService {
                 .build();
 
         Order saved = orderRepository.save(order);
+        // Ghi rollup cuối cùng để khóa dòng (ngày, event) được giữ ngắn nhất tới lúc commit
+        revenueRollupService.recordOrder(saved);
         return OrderMapper.INSTANCE.toDto(saved);
     }
 
@@ -66,7 +72,7 @@ public class OrderServiceImpl implements OrderService {
 
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        User user = securityHelper.getCurrentUser();
+        User user = securityHelper.getCurrentUserReference();
         Page<OrderDto> orderPage = orderRepository.findOrderDtosByOwner(user, pageable);
 
         return new OrderPageResponse(
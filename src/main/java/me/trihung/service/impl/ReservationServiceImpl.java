@@ -1,13 +1,21 @@
 package me.trihung.service.impl;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.annotation.PostConstruct;
 import me.trihung.dto.OrderDto;
 import me.trihung.dto.ReservationDto;
 import me.trihung.dto.request.HoldReservationRequest;
@@ -16,13 +24,16 @@ import me.trihung.entity.User;
 import me.trihung.entity.Zone;
 import me.trihung.enums.ReservationStatus;
 import me.trihung.exception.BadRequestException;
+import me.trihung.exception.ServiceBusyException;
 import me.trihung.helper.SecurityHelper;
 import me.trihung.mapper.OrderMapper;
 import me.trihung.mapper.ReservationMapper;
 import me.trihung.repository.ReservationRepository;
 import me.trihung.repository.ZoneRepository;
+import me.trihung.service.HoldAdmissionQueue;
 import me.trihung.service.OrderService;
 import me.trihung.service.ReservationService;
+import me.trihung.service.TicketInventoryService;
 
 @Service
 public class ReservationServiceImpl implements ReservationService {
@@ -34,17 +45,38 @@ public class ReservationServiceImpl implements ReservationService {
 	private SecurityHelper securityHelper;
 	@Autowired
 	private OrderService orderService;
+	@Autowired
+	private TicketInventoryService ticketInventoryService;
+	@Autowired
+	private HoldAdmissionQueue holdAdmissionQueue;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${app.reservation.batch.await-timeout-ms:2000}")
+	private long admissionTimeoutMs;
 
 	// Thời gian giữ vé mặc định (15 phút)
 	private static final int HOLD_MINUTES = 15;
 	private static final int PENDING_MINUTES = 10;
 
+	private TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	void init() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
 	// Giữ vé 15p
-	@Transactional
+	// Không @Transactional: khi dùng hàng đợi, request chờ kết quả tới admissionTimeoutMs và không
+	// được giữ connection trong lúc đó, chỉ worker của hàng đợi mới cần connection để ghi cả nhóm
 	public ReservationDto holdTickets(HoldReservationRequest holdReservationRequest) {
 		UUID zoneId = holdReservationRequest.getZoneId();
 		int quantity = holdReservationRequest.getQuantity();
-		Zone zone = zoneRepository.findById(zoneId)
+		if (quantity <= 0) {
+			throw BadRequestException.message("Số lượng vé phải lớn hơn 0");
+		}
+		// Transaction riêng của repository, connection được trả ngay sau câu query
+		Zone zone = zoneRepository.findWithEventById(zoneId)
 				.orElseThrow(() -> BadRequestException.message("Không tìm thấy zone"));
 
 		// Vé khả dụng = maxTickets - soldTickets - reserved
@@ -54,7 +86,7 @@ public class ReservationServiceImpl implements ReservationService {
 //		if (available < quantity) {
 //			throw BadRequestException.message("Không đủ số lượng vé trong zone này");
 //		}
-		User owner = securityHelper.getCurrentUser();
+		User owner = securityHelper.getCurrentUserReference();
 		Reservation reservation = Reservation.builder()
 				.zone(zone)
 				.quantity(quantity)
@@ -64,13 +96,46 @@ public class ReservationServiceImpl implements ReservationService {
 				.status(ReservationStatus.HOLD)
 				.id(UUID.randomUUID())
 				.build();
-		int result = reservationRepository.tryInsertReservation(reservation.getId(), zone.getId(), owner.getId(), quantity, reservation.getCreatedAt(),
-				reservation.getExpiresAt(), reservation.getStatus().name());
-		if (result == 0)
+		boolean accepted;
+		if (ticketInventoryService.isEnabled()) {
+			// Cấp vé trong bộ nhớ, giữ chỗ được ghi xuống DB sau theo batch
+			accepted = ticketInventoryService.tryAcquire(zone.getId(), quantity);
+			if (accepted) {
+				ticketInventoryService.persistAsync(reservation);
+			}
+		} else if (holdAdmissionQueue.isEnabled()) {
+			// Gom chung với các yêu cầu khác của zone, cả nhóm được ghi trong 1 transaction
+			accepted = awaitAdmission(holdAdmissionQueue.submit(reservation));
+		} else {
+			// Giữ vé trên dòng zones (không SUM bảng reservations) rồi ghi giữ chỗ trong cùng transaction
+			accepted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+				if (zoneRepository.tryHoldTickets(zone.getId(), quantity) == 0) {
+					return false;
+				}
+				reservationRepository.insertAll(List.of(reservation));
+				return true;
+			}));
+		}
+		if (!accepted)
 			throw BadRequestException.message("Không đủ số lượng vé trong zone này, số vé còn lại đang được giữ chỗ chờ đợi thanh toán. Vui lòng thử lại sau");
 		ReservationDto reservationDto = ReservationMapper.INSTANCE.toDto(reservation);
 		return reservationDto;
 	}
+
+	private boolean awaitAdmission(HoldAdmissionQueue.Admission admission) {
+		try {
+			return admission.await(admissionTimeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException ex) {
+			// Yêu cầu đã được rút khỏi hàng đợi, chắc chắn không được ghi
+			throw ServiceBusyException.message("Hệ thống đang quá tải, vui lòng thử lại sau");
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw ServiceBusyException.message("Yêu cầu giữ chỗ bị gián đoạn, vui lòng thử lại");
+		} catch (ExecutionException ex) {
+			// Transaction của cả nhóm lỗi (DB), không phải lỗi của request
+			throw ServiceBusyException.message("Không thể giữ chỗ lúc này, vui lòng thử lại sau");
+		}
+	}
 //	 @Param("zoneId") UUID zoneId,
 //     @Param("ownerId") UUID ownerId,
 //     @Param("quantity") int quantity,
@@ -80,6 +145,7 @@ public class ReservationServiceImpl implements ReservationService {
 	@Override
 	@Transactional(readOnly = true)
 	public ReservationDto getReservationById(UUID reservationId) {
+	    ticketInventoryService.flushIfPending(reservationId);
 	    Reservation reservation = reservationRepository.findById(reservationId)
 	            .orElseThrow(() -> BadRequestException.message("Không tìm thấy giữ chỗ"));
 	    return ReservationMapper.INSTANCE.toDto(reservation);
@@ -88,6 +154,7 @@ public class ReservationServiceImpl implements ReservationService {
 
 	@Transactional
 	public Reservation markAsPendingPayment(UUID reservationId) {
+		ticketInventoryService.flushIfPending(reservationId);
 		Reservation reservation = reservationRepository.findById(reservationId)
 				.orElseThrow(() -> BadRequestException.message("Không tìm thấy giữ chỗ"));
 
@@ -107,6 +174,7 @@ public class ReservationServiceImpl implements ReservationService {
 	// xác nhận thành công
 	@Transactional
 	public OrderDto confirmReservation(UUID reservationId) {
+		ticketInventoryService.flushIfPending(reservationId);
 		Reservation reservation = reservationRepository.findById(reservationId)
 				.orElseThrow(() -> BadRequestException.message("Giữ chỗ không tìm thấy"));
 
@@ -119,11 +187,9 @@ public class ReservationServiceImpl implements ReservationService {
 		}
 
 		Zone zone = reservation.getZone();
-		
 
-		// Cộng vào soldTickets đã bán
-		zone.setSoldTickets(zone.getSoldTickets() + reservation.getQuantity());
-		zoneRepository.save(zone);
+		// Chuyển vé từ đang giữ sang đã bán
+		zoneRepository.moveHeldToSold(zone.getId(), reservation.getQuantity());
 		
 		
 		reservationRepository.delete(reservation);
@@ -135,6 +201,11 @@ public class ReservationServiceImpl implements ReservationService {
 	
 	@Transactional
 	public void cancelReservation(UUID reservationId) {
-		reservationRepository.deleteById(reservationId);
+		ticketInventoryService.flushIfPending(reservationId);
+		reservationRepository.findById(reservationId).ifPresent(reservation -> {
+			reservationRepository.delete(reservation);
+			zoneRepository.addHeldTickets(reservation.getZone().getId(), -reservation.getQuantity());
+			ticketInventoryService.releaseAfterCommit(reservation.getZone().getId(), reservation.getQuantity());
+		});
 	}
 }
@@ -0,0 +1,92 @@
+package me.trihung.service.impl;
+
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import me.trihung.entity.Order;
+import me.trihung.exception.BadRequestException;
+import me.trihung.repository.DailyRevenueRollupRepository;
+import me.trihung.service.RevenueRollupService;
+
+@Service
+@Slf4j
+public class RevenueRollupServiceImpl implements RevenueRollupService {
+
+	@Autowired
+	private DailyRevenueRollupRepository rollupRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	// Số dòng rollup của mỗi (ngày, event). Đổi giá trị thì chạy lại rebuildAll để dữ liệu cũ được chia lại
+	@Value("${app.analytics.rollup.shards:8}")
+	private int shards;
+
+	private TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	void init() {
+		if (shards < 1 || shards > Short.MAX_VALUE) {
+			throw new IllegalStateException("app.analytics.rollup.shards must be between 1 and " + Short.MAX_VALUE);
+		}
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void recordOrder(Order order) {
+		// Không chen vào giữa 1 lần rebuild, nếu không câu upsert của rebuild sẽ ghi đè mất order này
+		rollupRepository.lockForOrder();
+		rollupRepository.addOrder(
+				order.getCreatedAt().toLocalDate(),
+				order.getZone().getEvent().getId(),
+				order.getId(),
+				shards,
+				order.getQuantity(),
+				order.getTotalAmount());
+	}
+
+	@Override
+	public int rebuild(LocalDate from, LocalDate to) {
+		if (from == null || to == null || from.isAfter(to)) {
+			throw BadRequestException.message("Khoảng ngày không hợp lệ");
+		}
+		int rows = 0;
+		// Chia theo tháng để mỗi transaction chỉ khóa/ghi lại 1 phần nhỏ của bảng rollup
+		LocalDate start = from;
+		while (!start.isAfter(to)) {
+			LocalDate monthEnd = start.with(TemporalAdjusters.lastDayOfMonth());
+			LocalDate end = monthEnd.isBefore(to) ? monthEnd : to;
+			LocalDate chunkStart = start;
+			LocalDate nextDay = end.plusDays(1);
+			Integer chunkRows = transactionTemplate.execute(status -> {
+				// Chờ các order đang ghi rollup commit và chặn order mới tới hết chunk này (checkout chờ trong lúc đó)
+				rollupRepository.lockForRebuild();
+				rollupRepository.deleteRange(chunkStart, nextDay);
+				return rollupRepository.rebuildRange(chunkStart.atStartOfDay(), nextDay.atStartOfDay(), shards);
+			});
+			rows += chunkRows == null ? 0 : chunkRows;
+			start = nextDay;
+		}
+		log.info("Rebuilt revenue rollups from {} to {}: {} rows", from, to, rows);
+		return rows;
+	}
+
+	@Override
+	public int rebuildAll() {
+		LocalDate today = LocalDate.now();
+		return rollupRepository.findFirstOrderDay()
+				.map(first -> rebuild(first, today))
+				.orElse(0);
+	}
+}
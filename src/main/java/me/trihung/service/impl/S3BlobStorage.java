@@ -0,0 +1,247 @@
+package me.trihung.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.trihung.service.BlobStorage;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+/**
+ * Lưu blob trên S3 hoặc server tương thích S3 (MinIO khi chạy local, xem docker-compose.yml).
+ * File lớn hơn part-size được upload bằng multipart upload; đọc theo read-mode:
+ * stream (ứng dụng đọc từ S3 rồi trả về client) hoặc presign (redirect client tới presigned URL).
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
+@Slf4j
+public class S3BlobStorage implements BlobStorage {
+
+    @Value("${app.storage.s3.bucket}")
+    private String bucket;
+
+    // Để trống khi dùng AWS, MinIO local: http://localhost:9000
+    @Value("${app.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${app.storage.s3.region:us-east-1}")
+    private String region;
+
+    // Để trống thì dùng DefaultCredentialsProvider (biến môi trường, IAM role...)
+    @Value("${app.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${app.storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${app.storage.s3.prefix:uploads/}")
+    private String prefix;
+
+    @Value("${app.storage.s3.path-style:true}")
+    private boolean pathStyle;
+
+    @Value("${app.storage.s3.read-mode:stream}")
+    private String readMode;
+
+    @Value("${app.storage.s3.presign-ttl:15m}")
+    private Duration presignTtl;
+
+    // S3 yêu cầu mỗi part (trừ part cuối) tối thiểu 5MB
+    @Value("${app.storage.s3.part-size:5MB}")
+    private DataSize partSize;
+
+    @Value("${app.storage.s3.create-bucket:false}")
+    private boolean createBucket;
+
+    private S3Client s3;
+    private S3Presigner presigner;
+
+    @PostConstruct
+    void init() {
+        AwsCredentialsProvider credentials = StringUtils.hasText(accessKey)
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.create();
+        S3Configuration configuration = S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
+        var clientBuilder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration);
+        var presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration);
+        if (StringUtils.hasText(endpoint)) {
+            clientBuilder.endpointOverride(URI.create(endpoint));
+            presignerBuilder.endpointOverride(URI.create(endpoint));
+        }
+        s3 = clientBuilder.build();
+        presigner = presignerBuilder.build();
+        if (createBucket) {
+            ensureBucket();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        s3.close();
+        presigner.close();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        long size = Files.size(source);
+        if (size <= partSize.toBytes()) {
+            s3.putObject(PutObjectRequest.builder().bucket(bucket).key(objectKey(key)).contentType(contentType).build(),
+                    RequestBody.fromFile(source));
+            return;
+        }
+        multipartPut(objectKey(key), source, contentType);
+    }
+
+    // Upload từng part từ file cục bộ, object chỉ xuất hiện khi complete thành công
+    private void multipartPut(String objectKey, Path source, String contentType) throws IOException {
+        String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket).key(objectKey).contentType(contentType).build()).uploadId();
+        try (InputStream input = Files.newInputStream(source)) {
+            List<CompletedPart> parts = new ArrayList<>();
+            byte[] buffer = new byte[(int) partSize.toBytes()];
+            int partNumber = 1;
+            int read;
+            while ((read = input.readNBytes(buffer, 0, buffer.length)) > 0) {
+                String etag = s3.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucket).key(objectKey).uploadId(uploadId).partNumber(partNumber).build(),
+                        RequestBody.fromBytes(read == buffer.length ? buffer : Arrays.copyOf(buffer, read))).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+                partNumber++;
+            }
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(objectKey).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (IOException | RuntimeException ex) {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket).key(objectKey).uploadId(uploadId).build());
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return head(key).isPresent();
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) {
+        return head(key).map(head -> new BlobInfo(key, head.contentLength(), head.lastModified(), head.contentType()));
+    }
+
+    @Override
+    public InputStream open(String key, long start, long end) throws IOException {
+        try {
+            return s3.getObject(GetObjectRequest.builder()
+                    .bucket(bucket).key(objectKey(key)).range("bytes=" + start + "-" + end).build());
+        } catch (S3Exception ex) {
+            throw new IOException("Cannot read blob " + key, ex);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(objectKey(key)).build());
+        } catch (S3Exception ex) {
+            throw new IOException("Cannot delete blob " + key, ex);
+        }
+    }
+
+    @Override
+    public Stream<BlobInfo> list() {
+        // Paginator gọi ListObjectsV2 từng trang khi stream được đọc tới
+        return s3.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build())
+                .contents()
+                .stream()
+                .map(object -> new BlobInfo(object.key().substring(prefix.length()), object.size(),
+                        object.lastModified(), null));
+    }
+
+    @Override
+    public Optional<URI> directReadUrl(String key) {
+        if (!"presign".equalsIgnoreCase(readMode)) {
+            return Optional.empty();
+        }
+        GetObjectPresignRequest request = GetObjectPresignRequest.builder()
+                .signatureDuration(presignTtl)
+                .getObjectRequest(GetObjectRequest.builder().bucket(bucket).key(objectKey(key)).build())
+                .build();
+        return Optional.of(URI.create(presigner.presignGetObject(request).url().toString()));
+    }
+
+    private Optional<HeadObjectResponse> head(String key) {
+        try {
+            return Optional.of(s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(objectKey(key)).build()));
+        } catch (S3Exception ex) {
+            if (ex.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw ex;
+        }
+    }
+
+    // Tạo bucket khi chạy với MinIO local (app.storage.s3.create-bucket = true)
+    private void ensureBucket() {
+        try {
+            s3.headBucket(HeadBucketRequest.builder().bucket(bucket).build());
+        } catch (S3Exception ex) {
+            if (ex.statusCode() != 404) {
+                throw ex;
+            }
+            log.info("Creating bucket {}", bucket);
+            s3.createBucket(CreateBucketRequest.builder().bucket(bucket).build());
+        }
+    }
+
+    private String objectKey(String key) {
+        return prefix + key;
+    }
+}
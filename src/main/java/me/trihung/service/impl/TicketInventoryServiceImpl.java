@@ -0,0 +1,284 @@
+package me.trihung.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.trihung.dto.ZoneTicketCountDto;
+import me.trihung.entity.Reservation;
+import me.trihung.repository.ReservationRepository;
+import me.trihung.repository.ZoneRepository;
+import me.trihung.service.TicketInventoryService;
+
+/**
+ * Kho vé trong bộ nhớ đứng trước DB: số vé còn lại của mỗi zone được giữ trong
+ * một AtomicInteger, giữ chỗ chỉ cần 1 lần CAS thay vì 1 câu UPDATE trên bảng zones.
+ * Các giữ chỗ đã được cấp vé được ghi xuống DB (reservations + zones.held_tickets)
+ * bất đồng bộ theo batch. Chỉ đúng khi chạy 1 instance, nhiều instance thì tắt bằng
+ * app.inventory.enabled=false để quay về kiểm tra trên DB.
+ * Client nhận id giữ chỗ trước khi dòng được ghi: nếu JVM chết đột ngột thì các giữ chỗ
+ * còn trong hàng đợi (tối đa khoảng flush-interval-ms) bị mất, khi tắt bình thường hàng
+ * đợi được ghi hết trước. Chấp nhận được vì giữ chỗ chỉ sống 15 phút và chưa thu tiền.
+ */
+@Service
+@Slf4j
+public class TicketInventoryServiceImpl implements TicketInventoryService {
+
+	// Chia counter theo hash của zoneId để rebuild/evict không tranh chấp trên 1 map duy nhất
+	private static final int STRIPES = 64;
+
+	@Autowired
+	private ZoneRepository zoneRepository;
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${app.inventory.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.inventory.flush-batch-size:500}")
+	private int flushBatchSize;
+
+	@Value("${app.inventory.flush-interval-ms:50}")
+	private long flushIntervalMs;
+
+	private final List<Map<UUID, AtomicInteger>> stripes = new ArrayList<>(STRIPES);
+	private final BlockingQueue<Reservation> pendingWrites = new LinkedBlockingQueue<>();
+	private final Map<UUID, Reservation> pendingById = new ConcurrentHashMap<>();
+	private final Object flushLock = new Object();
+	private TransactionTemplate writeTransaction;
+	// Thread riêng cho việc ghi batch, không dùng chung pool @Scheduled với các job dọn dẹp/đối soát
+	private ScheduledExecutorService flusher;
+
+	public TicketInventoryServiceImpl() {
+		for (int i = 0; i < STRIPES; i++) {
+			stripes.add(new ConcurrentHashMap<>());
+		}
+	}
+
+	@PostConstruct
+	void init() {
+		// Batch ghi xuống DB luôn chạy trong transaction riêng, kể cả khi được gọi từ 1 transaction khác
+		writeTransaction = new TransactionTemplate(transactionManager);
+		writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		if (enabled) {
+			flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "inventory-flusher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@PreDestroy
+	void shutdown() throws InterruptedException {
+		if (flusher == null) {
+			return;
+		}
+		flusher.shutdown();
+		flusher.awaitTermination(5, TimeUnit.SECONDS);
+		// Ghi nốt các giữ chỗ còn trong hàng đợi trước khi đóng DataSource
+		flush();
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	// Nạp lại toàn bộ counter từ bảng zones/reservations khi khởi động
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		if (!enabled) {
+			return;
+		}
+		List<ZoneTicketCountDto> counts = zoneRepository.findAllAvailableTickets();
+		for (ZoneTicketCountDto count : counts) {
+			// Zone đã được nạp lazy trong lúc khởi động thì giữ nguyên counter đó
+			stripe(count.getZoneId()).putIfAbsent(count.getZoneId(), new AtomicInteger(toInt(count.getQuantity())));
+		}
+		log.info("Inventory rebuilt for {} zones", counts.size());
+	}
+
+	@Override
+	public boolean tryAcquire(UUID zoneId, int quantity) {
+		AtomicInteger counter = counter(zoneId);
+		if (counter == null) {
+			return false;
+		}
+		int current;
+		do {
+			current = counter.get();
+			if (current < quantity) {
+				return false;
+			}
+		} while (!counter.compareAndSet(current, current - quantity));
+		return true;
+	}
+
+	@Override
+	public void release(UUID zoneId, int quantity) {
+		// Zone chưa được nạp thì lần nạp sau sẽ đọc đúng từ DB, không cần cộng lại
+		stripe(zoneId).computeIfPresent(zoneId, (id, counter) -> {
+			counter.addAndGet(quantity);
+			return counter;
+		});
+	}
+
+	@Override
+	public void releaseAfterCommit(UUID zoneId, int quantity) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			release(zoneId, quantity);
+			return;
+		}
+		// Trả vé trước khi commit thì vé có thể bị cấp lại trong khi dòng cũ vẫn còn, rollback thì vé bị đếm 2 lần
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				release(zoneId, quantity);
+			}
+		});
+	}
+
+	@Override
+	public void persistAsync(Reservation reservation) {
+		pendingById.put(reservation.getId(), reservation);
+		pendingWrites.add(reservation);
+	}
+
+	@Override
+	public void flushIfPending(UUID reservationId) {
+		if (pendingById.containsKey(reservationId)) {
+			// Luôn chờ lock: batch chứa giữ chỗ này có thể đang được 1 thread khác ghi
+			synchronized (flushLock) {
+				drainPendingWrites();
+			}
+		}
+	}
+
+	@Override
+	public void evict(Collection<UUID> zoneIds) {
+		if (zoneIds == null || zoneIds.isEmpty()) {
+			return;
+		}
+		// Lần nạp lại sẽ trừ các giữ chỗ còn trong hàng đợi nên không cần flush trước
+		zoneIds.forEach(zoneId -> stripe(zoneId).remove(zoneId));
+	}
+
+	void flush() {
+		if (pendingWrites.isEmpty()) {
+			return;
+		}
+		try {
+			synchronized (flushLock) {
+				drainPendingWrites();
+			}
+		} catch (RuntimeException ex) {
+			// Không để lỗi lọt ra ngoài, nếu không executor sẽ dừng lịch ghi
+			log.error("Failed to flush pending reservations", ex);
+		}
+	}
+
+	private void drainPendingWrites() {
+		List<Reservation> batch = new ArrayList<>(flushBatchSize);
+		while (pendingWrites.drainTo(batch, flushBatchSize) > 0) {
+			writeBatch(batch);
+			batch.clear();
+		}
+	}
+
+	private void writeBatch(List<Reservation> batch) {
+		try {
+			insert(batch);
+		} catch (RuntimeException ex) {
+			// 1 dòng lỗi (zone bị xóa...) làm hỏng cả batch JDBC, ghi lại từng dòng để chỉ bỏ các dòng lỗi
+			log.warn("Failed to persist batch of {} reservations, retrying one by one", batch.size(), ex);
+			for (Reservation reservation : batch) {
+				try {
+					insert(List.of(reservation));
+				} catch (RuntimeException rowEx) {
+					// Trả vé lại cho kho để không bị mất vé
+					log.error("Failed to persist reservation {}, releasing its tickets", reservation.getId(), rowEx);
+					release(reservation.getZone().getId(), reservation.getQuantity());
+				}
+			}
+		} finally {
+			// Vẫn trong flushLock nên loadCounter không thấy giữ chỗ vừa commit còn nằm trong pending
+			batch.forEach(reservation -> pendingById.remove(reservation.getId()));
+		}
+	}
+
+	private void insert(List<Reservation> reservations) {
+		writeTransaction.executeWithoutResult(status -> {
+			reservationRepository.insertAll(reservations);
+			reservations.stream()
+					.collect(Collectors.groupingBy(reservation -> reservation.getZone().getId(),
+							Collectors.summingInt(Reservation::getQuantity)))
+					.forEach(zoneRepository::addHeldTickets);
+		});
+	}
+
+	private AtomicInteger counter(UUID zoneId) {
+		Map<UUID, AtomicInteger> stripe = stripe(zoneId);
+		AtomicInteger counter = stripe.get(zoneId);
+		if (counter != null) {
+			return counter;
+		}
+		// Nạp ngoài map: computeIfAbsent sẽ giữ lock của bin trong suốt câu query,
+		// chặn mọi zone khác rơi vào cùng bin
+		AtomicInteger loaded = loadCounter(zoneId);
+		if (loaded == null) {
+			return null;
+		}
+		AtomicInteger existing = stripe.putIfAbsent(zoneId, loaded);
+		return existing != null ? existing : loaded;
+	}
+
+	private AtomicInteger loadCounter(UUID zoneId) {
+		// Giữ flushLock để không có batch nào đang ghi dở: giữ chỗ trong pending chắc chắn chưa có
+		// trong heldTickets (phải trừ thêm), giữ chỗ đã commit chắc chắn đã bị bỏ khỏi pending
+		synchronized (flushLock) {
+			int pending = pendingById.values().stream()
+					.filter(reservation -> zoneId.equals(reservation.getZone().getId()))
+					.mapToInt(Reservation::getQuantity)
+					.sum();
+			return zoneRepository.findAvailableTickets(zoneId)
+					.map(count -> new AtomicInteger(toInt(count.getQuantity() - pending)))
+					.orElse(null);
+		}
+	}
+
+	private Map<UUID, AtomicInteger> stripe(UUID zoneId) {
+		return stripes.get(Math.floorMod(zoneId.hashCode(), STRIPES));
+	}
+
+	private static int toInt(Long quantity) {
+		return quantity == null ? 0 : Math.max(0, quantity.intValue());
+	}
+}
@@ -40,9 +40,9 @@ import me.trihung.exception.BadRequestException;
 import me.trihung.exception.UnauthorizedException;
 import me.trihung.helper.SecurityHelper;
 import me.trihung.mapper.UserMapper;
-import me.trihung.repository.RefreshTokenRepository;
 import me.trihung.repository.RoleRepository;
 import me.trihung.repository.UserRepository;
+import me.trihung.service.RefreshTokenStore;
 import me.trihung.service.UserService;
 
 @Service
@@ -64,7 +64,7 @@ public class UserServiceImpl implements UserService {
 	private UserDetailsService userDetailsService;
 
 	@Autowired
-	private RefreshTokenRepository refreshTokenRepository;
+	private RefreshTokenStore refreshTokenStore;
 
 	@Autowired
 	TokenGenerator tokenGenerator;
@@ -136,9 +136,7 @@ public class UserServiceImpl implements UserService {
 
 		// Add 30 days
 		LocalDateTime future = nowLocal.plus(30, ChronoUnit.DAYS);
-		RefreshToken token = RefreshToken.builder().token(tokenDTO.getRefreshToken())
-				.username(userDetails.getUsername()).expireTime(future).build();
-		refreshTokenRepository.save(token);
+		refreshTokenStore.save(tokenDTO.getRefreshToken(), userDetails.getUsername(), future);
 		return tokenDTO;
 	}
 
@@ -156,6 +154,7 @@ public class UserServiceImpl implements UserService {
 
 		user.setPassword(passwordEncoder.encode(newPassword));
 		userRepository.save(user);
+		securityHelper.evictUser(user.getUsername());
 		log.debug("UserService", "Đã thay đổi mật khẩu cho user " + user.getUsername());
 	}
 
@@ -166,7 +165,7 @@ public class UserServiceImpl implements UserService {
 
 	@Override
 	public String refreshAccessToken(RefreshTokenRequest refreshToken) {
-		RefreshToken token = refreshTokenRepository.findByToken(refreshToken.getRefreshToken())
+		RefreshToken token = refreshTokenStore.find(refreshToken.getRefreshToken())
 				.orElseThrow(() -> BadRequestException.message("Token không hợp lệ"));
 
 		if (token.getExpireTime().isBefore(LocalDateTime.now())) {
@@ -175,8 +174,11 @@ public class UserServiceImpl implements UserService {
 		BearerTokenAuthenticationToken bearerTokenAuthenticationToken = new BearerTokenAuthenticationToken(
 				refreshToken.getRefreshToken());
 
-		Authentication authentication = refreshTokenAuthProvider.authenticate(bearerTokenAuthenticationToken);
+		Authentication jwtAuthentication = refreshTokenAuthProvider.authenticate(bearerTokenAuthenticationToken);
 		UserDetails userDetails = userDetailsService.loadUserByUsername(token.getUsername());
+		// Refresh token không mang id/role, dựng lại authentication từ user vừa tải để access token mới có đủ claim
+		Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails,
+				jwtAuthentication.getCredentials(), userDetails.getAuthorities());
 		TokenDTO tokenDTO = tokenGenerator.createToken(authentication);
 		log.debug("UserService", "Đã làm mới access token cho user " + userDetails.getUsername());
 		return tokenDTO.getAccessToken();
@@ -191,11 +193,12 @@ public class UserServiceImpl implements UserService {
 
 	@Override
 	public void logout(String refreshToken) {
-		String username = securityHelper.getCurrentUser().getUsername();
+		String username = securityHelper.getCurrentUserUsername()
+				.orElseThrow(() -> UnauthorizedException.message("User is not authenticated"));
 		System.out.println("logout: "+username+"----"+refreshToken);
-		RefreshToken token = refreshTokenRepository.findByTokenAndUsername(refreshToken, username)
-				.orElseThrow(() -> BadRequestException.message("Token không hợp lệ"));
-		refreshTokenRepository.delete(token);
+		if (!refreshTokenStore.delete(refreshToken, username)) {
+			throw BadRequestException.message("Token không hợp lệ");
+		}
 		log.debug("UserService", "Logout, xóa refresh token cho user " + username + " thành công");
 	}
 }
@@ -0,0 +1,11 @@
+-- Tìm kiếm tên event không phân biệt dấu/hoa thường bằng trigram
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() không IMMUTABLE nên không dùng được trong index, bọc lại với dictionary cố định
+CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text AS
+'SELECT public.unaccent(''public.unaccent'', $1)'
+LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+CREATE INDEX IF NOT EXISTS idx_events_event_name_trgm
+    ON events USING gin (lower(f_unaccent(event_name)) gin_trgm_ops);
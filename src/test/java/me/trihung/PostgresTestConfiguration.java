@@ -0,0 +1,20 @@
+package me.trihung;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Postgres chạy bằng Testcontainers cho các test cần đúng dialect (jsonb, ON CONFLICT, native query).
+ * Cùng image với docker-compose.yml, datasource được Spring Boot tự trỏ vào container.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class PostgresTestConfiguration {
+
+	@Bean
+	@ServiceConnection
+	PostgreSQLContainer<?> postgresContainer() {
+		return new PostgreSQLContainer<>("postgres:15-alpine");
+	}
+}
@@ -0,0 +1,107 @@
+package me.trihung.auth;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+
+/**
+ * So sánh chi phí ký và verify access token giữa RS256 (RSA-2048) và ES256 (P-256),
+ * dùng đúng encoder/decoder mà SecurityConfig dựng cho từng loại key, không qua CachingJwtDecoder.
+ * Chạy (JMH fork JVM mới nên cần classpath test trên dòng lệnh java):
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath me.trihung.auth.JwtSignatureBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSignatureBenchmark {
+
+	@Param({ "RS256", "ES256" })
+	private String algorithm;
+
+	private JwtEncoder encoder;
+	private JwtDecoder decoder;
+	private JwtEncoderParameters parameters;
+	private String token;
+
+	@Setup
+	public void setUp() throws Exception {
+		SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.from(algorithm);
+		KeyPair keyPair = generateKeyPair(signatureAlgorithm);
+		encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(
+				new JWKSet(SecurityConfig.signingKey(keyPair.getPublic(), keyPair.getPrivate()))));
+		decoder = SecurityConfig.jwtDecoder(keyPair.getPublic());
+
+		// Cùng các claim TokenGenerator ghi vào access token
+		Instant now = Instant.now();
+		JwtClaimsSet claims = JwtClaimsSet.builder()
+				.issuer("benchmark-user")
+				.issuedAt(now)
+				.expiresAt(now.plus(1, ChronoUnit.DAYS))
+				.subject("benchmark-user")
+				.claim(TokenGenerator.CLAIM_USER_ID, UUID.randomUUID().toString())
+				.claim(TokenGenerator.CLAIM_ROLES, List.of("USER"))
+				.build();
+		parameters = JwtEncoderParameters.from(JwsHeader.with(signatureAlgorithm).build(), claims);
+		token = encoder.encode(parameters).getTokenValue();
+	}
+
+	@Benchmark
+	public String sign() {
+		return encoder.encode(parameters).getTokenValue();
+	}
+
+	@Benchmark
+	public Jwt verify() {
+		return decoder.decode(token);
+	}
+
+	private static KeyPair generateKeyPair(SignatureAlgorithm algorithm) throws Exception {
+		if (algorithm == SignatureAlgorithm.ES256) {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+			generator.initialize(new ECGenParameterSpec("secp256r1"));
+			return generator.generateKeyPair();
+		}
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		return generator.generateKeyPair();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(JwtSignatureBenchmark.class.getSimpleName()).build()).run();
+	}
+}
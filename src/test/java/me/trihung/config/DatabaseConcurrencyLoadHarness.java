@@ -0,0 +1,183 @@
+package me.trihung.config;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import me.trihung.exception.ServiceBusyException;
+
+/**
+ * Tải thử DatabaseConcurrencyAspect với Postgres thật: mỗi request mượn 1 connection Hikari và chạy
+ * pg_sleep(query-ms) như 1 transaction ngắn. So sánh 3 cách chạy request:
+ * platform-200 (pool 200 luồng như Tomcat mặc định, không cap), per-request không cap và per-request có cap
+ * (aspect thật, áp qua AspectJProxyFactory). per-request dùng virtual thread khi chạy trên JDK 21+,
+ * JDK thấp hơn thì dùng 1 platform thread cho mỗi request (cùng mức độ đồng thời, khác chi phí luồng).
+ * Client giữ tối đa "concurrency" request đang chạy, độ trễ tính từ lúc client gửi (gồm cả thời gian xếp hàng).
+ * Chạy (cần Postgres, các tham số là system property -Dload.*):
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-Dload.url=jdbc:postgresql://localhost:5432/postgres -Dload.user=postgres
+ * -cp %classpath me.trihung.config.DatabaseConcurrencyLoadHarness"
+ */
+public class DatabaseConcurrencyLoadHarness {
+
+	private static final String URL = System.getProperty("load.url", "jdbc:postgresql://localhost:5432/postgres");
+	private static final String USER = System.getProperty("load.user", "postgres");
+	private static final String PASSWORD = System.getProperty("load.password", "");
+	private static final int POOL_SIZE = Integer.getInteger("load.pool-size", 10);
+	private static final int REQUESTS = Integer.getInteger("load.requests", 20000);
+	private static final long QUERY_MS = Long.getLong("load.query-ms", 5);
+	private static final long ACQUIRE_TIMEOUT_MS = Long.getLong("load.acquire-timeout-ms", 2000);
+	private static final List<Integer> CONCURRENCY = Arrays
+			.stream(System.getProperty("load.concurrency", "200,1000,4000").split(","))
+			.map(String::trim)
+			.map(Integer::valueOf)
+			.toList();
+
+	// Chỉ để aspect nhận ra đây là lời gọi DB (pointcut @within(Transactional) trong me.trihung..*),
+	// không có TransactionInterceptor nào chạy
+	@Transactional
+	public static class QueryWork {
+
+		private final DataSource dataSource;
+
+		public QueryWork(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		public void run() throws SQLException {
+			try (Connection connection = dataSource.getConnection();
+					PreparedStatement statement = connection.prepareStatement("SELECT pg_sleep(?)")) {
+				statement.setDouble(1, QUERY_MS / 1000.0);
+				statement.execute();
+			}
+		}
+	}
+
+	private record Result(String scenario, int concurrency, double seconds, int ok, int busy, int poolTimeouts,
+			long p50, long p99, long max) {
+
+		@Override
+		public String toString() {
+			return String.format("%-22s %6d %9.0f %7d %6d %9d %8d %8d %8d", scenario, concurrency, ok / seconds, ok,
+					busy, poolTimeouts, p50, p99, max);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		ExecutorService probe = newVirtualThreadExecutor();
+		boolean virtual = probe != null;
+		if (probe != null) {
+			probe.shutdown();
+		}
+		System.out.printf("JDK %s, per-request threads: %s, pool %d, %d requests, query %d ms, acquire timeout %d ms%n",
+				Runtime.version(), virtual ? "virtual" : "platform (no virtual threads before JDK 21)", POOL_SIZE,
+				REQUESTS, QUERY_MS, ACQUIRE_TIMEOUT_MS);
+		System.out.printf("%-22s %6s %9s %7s %6s %9s %8s %8s %8s%n", "scenario", "conc", "ok/s", "ok", "busy",
+				"poolTmout", "p50 ms", "p99 ms", "max ms");
+		for (int concurrency : CONCURRENCY) {
+			System.out.println(run("platform-200", concurrency, () -> Executors.newFixedThreadPool(200), false));
+			System.out.println(run("per-request", concurrency, DatabaseConcurrencyLoadHarness::perRequest, false));
+			System.out.println(run("per-request+cap", concurrency, DatabaseConcurrencyLoadHarness::perRequest, true));
+		}
+	}
+
+	private static Result run(String scenario, int concurrency, ExecutorFactory executors, boolean capped)
+			throws Exception {
+		HikariConfig config = new HikariConfig();
+		config.setJdbcUrl(URL);
+		config.setUsername(USER);
+		config.setPassword(PASSWORD);
+		config.setMaximumPoolSize(POOL_SIZE);
+		config.setMinimumIdle(POOL_SIZE);
+		config.setConnectionTimeout(ACQUIRE_TIMEOUT_MS);
+		try (HikariDataSource dataSource = new HikariDataSource(config)) {
+			QueryWork work = new QueryWork(dataSource);
+			if (capped) {
+				AspectJProxyFactory factory = new AspectJProxyFactory(work);
+				factory.setProxyTargetClass(true);
+				factory.addAspect(new DatabaseConcurrencyAspect(POOL_SIZE, ACQUIRE_TIMEOUT_MS));
+				work = factory.getProxy();
+			}
+			// Làm nóng pool và JIT
+			for (int i = 0; i < POOL_SIZE * 10; i++) {
+				work.run();
+			}
+
+			QueryWork target = work;
+			long[] latencies = new long[REQUESTS];
+			AtomicInteger ok = new AtomicInteger();
+			AtomicInteger busy = new AtomicInteger();
+			AtomicInteger poolTimeouts = new AtomicInteger();
+			Semaphore inFlight = new Semaphore(concurrency);
+			CountDownLatch done = new CountDownLatch(REQUESTS);
+			ExecutorService executor = executors.create();
+			long start = System.nanoTime();
+			for (int i = 0; i < REQUESTS; i++) {
+				inFlight.acquire();
+				int index = i;
+				long submitted = System.nanoTime();
+				executor.execute(() -> {
+					RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+					try {
+						target.run();
+						ok.incrementAndGet();
+					} catch (ServiceBusyException ex) {
+						busy.incrementAndGet();
+					} catch (SQLException ex) {
+						poolTimeouts.incrementAndGet();
+					} finally {
+						RequestContextHolder.resetRequestAttributes();
+						latencies[index] = (System.nanoTime() - submitted) / 1_000_000;
+						inFlight.release();
+						done.countDown();
+					}
+				});
+			}
+			done.await();
+			double seconds = (System.nanoTime() - start) / 1e9;
+			executor.shutdown();
+			Arrays.sort(latencies);
+			return new Result(scenario, concurrency, seconds, ok.get(), busy.get(), poolTimeouts.get(),
+					latencies[REQUESTS / 2], latencies[(int) (REQUESTS * 0.99)], latencies[REQUESTS - 1]);
+		}
+	}
+
+	private static ExecutorService perRequest() {
+		ExecutorService virtual = newVirtualThreadExecutor();
+		return virtual != null ? virtual : Executors.newCachedThreadPool();
+	}
+
+	// Executors.newVirtualThreadPerTaskExecutor chỉ có từ JDK 21, project biên dịch với release 17
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException ex) {
+			return null;
+		}
+	}
+
+	@FunctionalInterface
+	private interface ExecutorFactory {
+		ExecutorService create();
+	}
+}
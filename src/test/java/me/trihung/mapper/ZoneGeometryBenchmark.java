@@ -0,0 +1,135 @@
+package me.trihung.mapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import me.trihung.dto.EventDto;
+import me.trihung.dto.request.EventRequest;
+import me.trihung.entity.Zone;
+
+/**
+ * Chi phí map và serialize tọa độ zone: parse JSON mỗi lần (cache miss), lấy từ cache geometry
+ * kèm bản sao, bỏ hẳn tọa độ như các API danh sách, và serialize ZoneDto có/không có tọa độ.
+ * points là số đỉnh của polygon.
+ * Chạy (JMH fork JVM mới nên cần classpath test trên dòng lệnh java):
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath me.trihung.mapper.ZoneGeometryBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZoneGeometryBenchmark {
+
+	@Param({ "4", "64", "512" })
+	private int points;
+
+	private ObjectMapper objectMapper;
+	private ZoneMapper zoneMapper;
+	// Chưa có updatedDate nên luôn parse lại JSON, giống hành vi trước khi có cache
+	private Zone uncachedZone;
+	private Zone cachedZone;
+	private EventDto.ZoneDto zoneWithGeometry;
+	private EventDto.ZoneDto zoneWithoutGeometry;
+
+	@Setup
+	public void setUp() throws Exception {
+		objectMapper = new ObjectMapper().findAndRegisterModules();
+		ZoneMapperImpl mapper = new ZoneMapperImpl();
+		ReflectionTestUtils.setField(mapper, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(mapper, "geometryCacheMaxSize", 1000L);
+		mapper.initGeometryCache();
+		zoneMapper = mapper;
+
+		String coordinates = objectMapper.writeValueAsString(polygon(points));
+		uncachedZone = zone(coordinates);
+		cachedZone = zone(coordinates);
+		cachedZone.setId(UUID.randomUUID());
+		cachedZone.setUpdatedDate(LocalDateTime.now());
+		zoneWithGeometry = zoneMapper.toZoneDto(cachedZone);
+		zoneWithoutGeometry = zoneMapper.toZoneDtoWithoutGeometry(cachedZone);
+	}
+
+	@Benchmark
+	public EventDto.ZoneDto mapParsingJson() {
+		return zoneMapper.toZoneDto(uncachedZone);
+	}
+
+	@Benchmark
+	public EventDto.ZoneDto mapFromCache() {
+		return zoneMapper.toZoneDto(cachedZone);
+	}
+
+	@Benchmark
+	public EventDto.ZoneDto mapWithoutGeometry() {
+		return zoneMapper.toZoneDtoWithoutGeometry(cachedZone);
+	}
+
+	@Benchmark
+	public byte[] serializeWithGeometry() throws Exception {
+		return objectMapper.writeValueAsBytes(zoneWithGeometry);
+	}
+
+	@Benchmark
+	public byte[] serializeWithoutGeometry() throws Exception {
+		return objectMapper.writeValueAsBytes(zoneWithoutGeometry);
+	}
+
+	private static Zone zone(String coordinates) {
+		return Zone.builder()
+				.name("Zone A")
+				.maxTickets(500)
+				.price(BigDecimal.valueOf(250000))
+				.color("#ff0000")
+				.isSellable(true)
+				.isSeatingZone(false)
+				.rotation(0.0)
+				.soldTickets(0)
+				.coordinates(coordinates)
+				.build();
+	}
+
+	private static EventRequest.CoordinatesRequest polygon(int points) {
+		EventRequest.CoordinatesRequest coordinates = new EventRequest.CoordinatesRequest();
+		coordinates.setX(120.5);
+		coordinates.setY(48.25);
+		List<EventRequest.PointRequest> vertices = new ArrayList<>(points);
+		for (int i = 0; i < points; i++) {
+			double angle = 2 * Math.PI * i / points;
+			EventRequest.PointRequest point = new EventRequest.PointRequest();
+			point.setX(200 + 150 * Math.cos(angle));
+			point.setY(200 + 150 * Math.sin(angle));
+			vertices.add(point);
+		}
+		coordinates.setPoints(vertices);
+		return coordinates;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ZoneGeometryBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,124 @@
+package me.trihung.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import jakarta.persistence.EntityManagerFactory;
+import me.trihung.PostgresTestConfiguration;
+import me.trihung.dto.EventDto;
+import me.trihung.entity.Event;
+import me.trihung.entity.Organizer;
+import me.trihung.entity.User;
+import me.trihung.entity.Venue;
+import me.trihung.entity.Zone;
+import me.trihung.enums.EventStatus;
+import me.trihung.mapper.EventMapper;
+import me.trihung.mapper.EventMapperImpl;
+import me.trihung.mapper.ZoneMapperImpl;
+
+/**
+ * Số câu SQL để nạp và map 1 trang event không phụ thuộc số event trên trang:
+ * select trang (join venue, organizer) + count + 1 câu nạp zones theo lô.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ PostgresTestConfiguration.class, JacksonAutoConfiguration.class, EventMapperImpl.class, ZoneMapperImpl.class })
+class EventListingQueryCountTest {
+
+	private static final int EVENT_COUNT = 30;
+	private static final int ZONES_PER_EVENT = 3;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private EventRepository eventRepository;
+
+	@Autowired
+	private EventMapper eventMapper;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		User owner = entityManager.persist(User.builder()
+				.email("owner@example.com")
+				.username("owner")
+				.roles(new HashSet<>())
+				.build());
+		for (int i = 0; i < EVENT_COUNT; i++) {
+			Event event = Event.builder()
+					.eventName("Event " + i)
+					.status(EventStatus.PUBLISHED)
+					.owner(owner)
+					// Mỗi event 1 venue/organizer riêng để join không được phục vụ từ persistence context
+					.venue(Venue.builder().province("Province " + i).address("Address " + i).build())
+					.organizer(Organizer.builder().name("Organizer " + i).build())
+					.zones(new ArrayList<>())
+					.build();
+			for (int z = 0; z < ZONES_PER_EVENT; z++) {
+				event.addZone(Zone.builder()
+						.name("Zone " + z)
+						.maxTickets(100)
+						.price(BigDecimal.TEN)
+						.soldTickets(0)
+						.coordinates("{\"x\":1,\"y\":2}")
+						.build());
+			}
+			event.recalculateTotals();
+			entityManager.persist(event);
+		}
+		entityManager.flush();
+		entityManager.clear();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 10, 25 })
+	void pagedListingUsesConstantStatementCount(int pageSize) {
+		Page<Event> page = eventRepository.findByStatus(EventStatus.PUBLISHED, PageRequest.of(0, pageSize));
+		List<EventDto> events = eventMapper.toEventDtoList(page.getContent(), false);
+
+		assertThat(events).hasSize(pageSize);
+		assertThat(events).allSatisfy(event -> {
+			assertThat(event.getZones()).hasSize(ZONES_PER_EVENT);
+			assertThat(event.getOwnerId()).isNotNull();
+		});
+		// Trang + count + zones của cả trang
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 10, 25 })
+	void findAllPageUsesConstantStatementCount(int pageSize) {
+		Page<Event> page = eventRepository.findAll(PageRequest.of(0, pageSize));
+		eventMapper.toEventDtoList(page.getContent(), true);
+
+		assertThat(page.getNumberOfElements()).isEqualTo(pageSize);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+}